@@ -1,14 +1,22 @@
 package de.realriu.riulib.gui.imagelist;
 
+import de.realriu.riulib.helpers.ImageCache;
+import de.realriu.riulib.helpers.ImagePyramid;
+import de.realriu.riulib.helpers.ItemStore;
 import de.realriu.riulib.helpers.ScaleImage;
-import de.realriu.riulib.helpers.ScaleImage.Rectangle;
 import java.awt.Color;
 import java.awt.Font;
+import java.awt.FontMetrics;
 
 
 import java.awt.Graphics;
 
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
 import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
 
 import java.awt.event.ComponentEvent;
 import java.awt.event.ComponentListener;
@@ -18,8 +26,16 @@ import java.awt.event.MouseMotionListener;
 import java.awt.event.MouseWheelEvent;
 import java.awt.event.MouseWheelListener;
 import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 
 import javax.swing.JPanel;
@@ -39,19 +55,19 @@ public abstract class AbstractImageList<T> extends JPanel implements MouseListen
      * Current position from which the images are drawn.<br/>
      * Default: 0
      */
-    protected int position = 0;
+    protected volatile int position = 0;
     /**
      * Index of image where the mouse is over<br/>
      * -1 if the mouse isn't over a image<br/>
      * Default: -1
      */
-    protected int mouseOverPicNumber = -1;
+    protected volatile int mouseOverPicNumber = -1;
     /**
      * Index of selected Image<br/>
      * -1 if no image is selected<br/>
      * Default: -1
      */
-    protected int selectedImageIndex = -1;
+    protected volatile int selectedImageIndex = -1;
     /**
      * List of ImageListListeners  &lt;T&gt;
      */
@@ -61,23 +77,76 @@ public abstract class AbstractImageList<T> extends JPanel implements MouseListen
      */
     protected List<ImageListPropertyListener> ilpls = new ArrayList<ImageListPropertyListener>();
     /**
-     * List with the images that should be drawn.
+     * Column of the images in the item store
      */
-    protected final List<Image> images = new ArrayList<Image>();
+    protected static final int IMAGE_COLUMN = 0;
     /**
-     * List with the image titles
+     * Column of the titles in the item store
      */
-    protected final List<String> titles = new ArrayList<String>();
+    protected static final int TITLE_COLUMN = 1;
+    /**
+     * Items of the list, every item is a row with the image, the title and the columns of the subclasses.<br/>
+     * Rows are only inserted, removed and moved as a whole, so the columns can't drift apart.
+     * Is only modified while holding the lock of the list, paint() draws a snapshot.
+     * @see #insertItem(int, java.awt.Image, java.lang.String)
+     * @see #removeItems(int, int)
+     * @see #getState()
+     */
+    protected final ItemStore items = new ItemStore(2, 0) {
+
+        @Override
+        protected void changed() {
+            stateChanged = true;
+        }
+    };
+    /**
+     * Width and height of the images, precomputed when the image is set (-1 if unknown)
+     */
+    private final int widthColumn = items.addIntColumn(-1);
+    private final int heigthColumn = items.addIntColumn(-1);
+    /**
+     * Title layouts of the painted tiles by index, only used by paint(). A layout is valid for its title instance,
+     * titleLayoutFont and titleLayoutWidth, so it survives new snapshots as long as the title isn't replaced.
+     * @see #invalidateTitleLayouts()
+     */
+    private TitleLayout[] titleLayouts = new TitleLayout[0];
+    private Font titleLayoutFont = null;
+    private int titleLayoutWidth = -1;
+    private volatile boolean titleLayoutsInvalid = false;
+    /**
+     * Images that should be drawn, a column of the items.<br/>
+     * Images can be set, rows are inserted and removed by the item methods.
+     * @see #getState()
+     */
+    protected final ItemColumn<Image> images = new ItemColumn<Image>(IMAGE_COLUMN);
+    /**
+     * Image titles, a column of the items.<br/>
+     * Titles can be set, rows are inserted and removed by the item methods.
+     * @see #getState()
+     */
+    protected final ItemColumn<String> titles = new ItemColumn<String>(TITLE_COLUMN);
+    /**
+     * Greater than 0 while a batch operation runs, the events of the single modifications are suppressed then
+     */
+    private int batchDepth = 0;
+    /**
+     * Snapshot of the images and titles for paint()
+     */
+    private volatile State state = null;
+    /**
+     * Is set by every modification of the items, the next getState() then takes a new snapshot
+     */
+    private volatile boolean stateChanged = true;
     /**
      * Current image width<br/>
      * Default: 0
      */
-    protected int fotoWidth;
+    protected volatile int fotoWidth;
     /**
      * Current Image height<br/>
      * Default: 0
      */
-    protected int fotoHeigth;
+    protected volatile int fotoHeigth;
     /**
      * Space in Pixels between the images<br/>
      * Default: 10
@@ -126,7 +195,7 @@ public abstract class AbstractImageList<T> extends JPanel implements MouseListen
      * Index of the currently centering image<br/>
      * Default: -1
      */
-    protected int centeringImage = -1;
+    protected volatile int centeringImage = -1;
     /**
      * Specifies how much can be scrolled up per mouse wheel rotations.<br/>
      * if mouseWheelSensivity is less or equal to 0, the mouse wheel scrolling is disabled.<br/>
@@ -192,11 +261,73 @@ public abstract class AbstractImageList<T> extends JPanel implements MouseListen
 
     private Integer dragStart = 0;
     private int oldpos = 0;
-    private int wheel;
-    private Thread t = null;
     private boolean wannaDrag = false;
-    private boolean isMoving = false;
-    private int currentWheelMovingIsAllowed = mouseWheelSensivity;
+    /**
+     * Drives the animations of the list<br/>
+     * Default: Animator.getShared()
+     */
+    private Animator animator = Animator.getShared();
+    /**
+     * Channel of the scroll animations (wheel, slide back, centering), a new one replaces the running one
+     */
+    private final Object scrollChannel = new Object();
+    /**
+     * Channel of the swap animations, they are executed one after another
+     */
+    private final Object swapChannel = new Object();
+    /**
+     * Last started wheel animation, further rotations are added while it is running
+     */
+    private WheelAnimation wheelAnimation = null;
+    /**
+     * Reused by paint() to avoid allocations per frame
+     */
+    private final Rectangle paintPaddingRect = new Rectangle();
+    private final Rectangle paintImageRect = new Rectangle();
+    private final Rectangle paintVisibleRect = new Rectangle();
+    private final Rectangle paintClipRect = new Rectangle();
+    /**
+     * New index of every image while a reorder animation runs, otherwise <b>null</b>
+     */
+    private volatile int[] reorderMoves = null;
+    /**
+     * Progress of the reorder animation from 0 to 1
+     */
+    private volatile double reorderProgress = 0;
+    private final Rectangle paintTileRect = new Rectangle();
+    /**
+     * Images which are already scaled to their padded tile rectangle, so they are only blitted by paint().<br/>
+     * Is cleared if the tile size changes.<br/>
+     * Default: 32 MB, <b>null</b> if the render cache is disabled
+     */
+    private ImageCache<Image> renderCache = new ImageCache<Image>(32L * 1024 * 1024);
+    /**
+     * Copies of the render cache in the graphics memory (VolatileImage), keyed by the scaled image.<br/>
+     * Default: <b>null</b> (disabled)
+     * @see #setVolatileTiles(boolean)
+     */
+    private ImageCache<Image> volatileCache = null;
+    /**
+     * Tile size for which the render cache was filled
+     */
+    private int renderCacheWidth = -1;
+    private int renderCacheHeigth = -1;
+    /**
+     * Downscaled levels of the images, the tiles are scaled from the nearest level instead of the image.<br/>
+     * Default: <b>null</b> (disabled)
+     * @see #setPyramidSize(long)
+     */
+    private ImagePyramid pyramid = null;
+    /**
+     * Creates the levels of the pyramids of all lists, is created on demand
+     */
+    private static ExecutorService pyramidExecutor = null;
+    /**
+     * Scroll velocity, measured between the paint() calls
+     */
+    private double scrollVelocity = 0;
+    private int lastPaintPosition = 0;
+    private long lastPaintTime = 0;
 
     /**
      * Directions in which the ImageList is scrollable.
@@ -234,6 +365,7 @@ public abstract class AbstractImageList<T> extends JPanel implements MouseListen
     public void setForceSquaredImages(boolean squared){
         forceSqaueredImages = squared;
 
+        invalidateRenderCache();
         repaint();
         for (ImageListPropertyListener ilpl : ilpls) {
             ilpl.forceSquaredImagesChanged(squared);
@@ -261,6 +393,7 @@ public abstract class AbstractImageList<T> extends JPanel implements MouseListen
         else
             titleFont = new Font(null, Font.PLAIN, 12);
 
+        invalidateTitleLayouts();
         repaint();
         
         
@@ -321,6 +454,7 @@ public abstract class AbstractImageList<T> extends JPanel implements MouseListen
         margin[2] = top;
         margin[3] = bottom;
 
+        invalidateRenderCache();
         repaint();
         for (ImageListPropertyListener ilpl : ilpls) {
             ilpl.marginChanged(old, margin);
@@ -355,6 +489,7 @@ public abstract class AbstractImageList<T> extends JPanel implements MouseListen
         padding[2] = top;
         padding[3] = bottom;
 
+        invalidateRenderCache();
         repaint();
         for (ImageListPropertyListener ilpl : ilpls) {
             ilpl.paddingChanged(old, margin);
@@ -450,7 +585,6 @@ public abstract class AbstractImageList<T> extends JPanel implements MouseListen
     public void setMouseWheelSensivity(int mouseWheelSensivity) {
         int old = this.mouseWheelSensivity;
         this.mouseWheelSensivity = mouseWheelSensivity;
-        currentWheelMovingIsAllowed = mouseWheelSensivity;
         for (ImageListPropertyListener ilpl : ilpls) {
             ilpl.mouseWheelSensivityChanged(old, mouseWheelSensivity);
         }
@@ -589,6 +723,7 @@ public abstract class AbstractImageList<T> extends JPanel implements MouseListen
      * @param index if index is not valid no image will be selected.
      */
     public void selectImage(int index) {
+        int old = selectedImageIndex;
         if (index >= 0 && index < images.size()) {
             selectedImageIndex = index;
         } else {
@@ -596,7 +731,8 @@ public abstract class AbstractImageList<T> extends JPanel implements MouseListen
         }
 
         fireImageSelected(selectedImageIndex);
-        repaint();
+        repaintTile(old);
+        repaintTile(selectedImageIndex);
     }
 
     /**
@@ -629,6 +765,117 @@ public abstract class AbstractImageList<T> extends JPanel implements MouseListen
      */
     public abstract T replaceImage(int pos, T newImage);
 
+    /**
+     * Adds several images at once. The list is locked only once, the listeners receive one imagesAdded() event
+     * instead of an imageAdded() event per image and the list is repainted once.
+     * @param elements images
+     * @param titles titles in the order of the images, <b>null</b> for no titles
+     * @see ImageListBatchListener#imagesAdded(java.util.List, int)
+     */
+    public synchronized void addImages(Collection<? extends T> elements, List<String> titles) {
+        if (elements == null) {
+            throw new IllegalArgumentException("Nullpointer für die Bilder übergeben!");
+        }
+        if (titles != null && titles.size() != elements.size()) {
+            throw new IllegalArgumentException("Anzahl der Titel(" + titles.size() + ") passt nicht zur Anzahl der Bilder(" + elements.size() + ")");
+        }
+
+        int from = count();
+        Iterator<String> title = titles == null ? null : titles.iterator();
+        batchDepth++;
+        try {
+            for (T e : elements) {
+                addImage(e, title == null ? null : title.next());
+            }
+        } finally {
+            batchDepth--;
+
+            // Unterklassen können ungültige Bilder überspringen
+            List<T> added = new ArrayList<T>(count() - from);
+            for (int i = from; i < count(); i++) {
+                added.add(getImage(i));
+            }
+            if (!added.isEmpty()) {
+                fireImagesAdded(added, from);
+            }
+        }
+    }
+
+    /**
+     * Removes the images from index <i>from</i> (inclusive) to index <i>to</i> (exclusive) at once.
+     * The list is locked only once, the listeners receive one imagesRemoved() event
+     * instead of an imageRemoved() event per image and the list is repainted once.
+     * @param from index of the first image
+     * @param to index after the last image
+     * @return removed images
+     * @see ImageListBatchListener#imagesRemoved(java.util.List, int)
+     */
+    public synchronized List<T> removeRange(int from, int to) {
+        if (from < 0 || to > count() || from > to) {
+            throw new IllegalArgumentException("Ungültiger Bereich angegeben! (" + from + " - " + to + ") (Size: " + count() + ")");
+        }
+
+        List<T> removed = new ArrayList<T>(to - from);
+        for (int i = from; i < to; i++) {
+            removed.add(getImage(i));
+        }
+
+        batchDepth++;
+        try {
+            for (int i = to - 1; i >= from; i--) {
+                removeImage(i);
+            }
+        } finally {
+            batchDepth--;
+        }
+
+        if (!removed.isEmpty()) {
+            fireImagesRemoved(removed, from);
+        }
+        return removed;
+    }
+
+    /**
+     * Replaces the images from index <i>from</i> on with the specified ones at once.
+     * The list is locked only once, the listeners receive one imagesReplaced() event
+     * instead of an imageReplaced() event per image and the list is repainted once.
+     * @param from index of the first image
+     * @param elements new images
+     * @return replaced images
+     * @see ImageListBatchListener#imagesReplaced(java.util.List, java.util.List, int)
+     */
+    public synchronized List<T> replaceAll(int from, List<? extends T> elements) {
+        if (elements == null) {
+            throw new IllegalArgumentException("Nullpointer für die Bilder übergeben!");
+        }
+        if (from < 0 || from + elements.size() > count()) {
+            throw new IllegalArgumentException("Ungültiger Bereich angegeben! (" + from + " - " + (from + elements.size()) + ") (Size: " + count() + ")");
+        }
+
+        List<T> replaced = new ArrayList<T>(elements.size());
+        batchDepth++;
+        try {
+            for (int i = 0; i < elements.size(); i++) {
+                replaced.add(replaceImage(from + i, elements.get(i)));
+            }
+        } finally {
+            batchDepth--;
+        }
+
+        if (!replaced.isEmpty()) {
+            fireImagesReplaced(replaced, new ArrayList<T>(elements), from);
+        }
+        return replaced;
+    }
+
+    /**
+     * Returns whether a batch operation runs, then the events of the single modifications are suppressed.
+     * @return true during addImages(), removeRange() and replaceAll()
+     */
+    protected boolean isBatchRunning() {
+        return batchDepth > 0;
+    }
+
     /**
      * Returns the number of images
      * @return image count
@@ -773,8 +1020,12 @@ public abstract class AbstractImageList<T> extends JPanel implements MouseListen
         return titles.get(i);
     }
 
+    /**
+     * Draws the list. The images and titles are taken from the snapshot, so paint() doesn't lock the list.
+     * @see #getState()
+     */
     @Override
-    public synchronized void paint(Graphics g) {
+    public void paint(Graphics g) {
         super.paint(g);
 
         Alignment align = this.align == Alignment.Horizontal || this.align == null ? Alignment.Horizontal : Alignment.Vertical;
@@ -787,7 +1038,8 @@ public abstract class AbstractImageList<T> extends JPanel implements MouseListen
         }
 
         if (align == Alignment.Horizontal) {
-            fotoHeigth = this.getVisibleRect().height - 3;
+            computeVisibleRect(paintVisibleRect);
+            fotoHeigth = paintVisibleRect.height - 3;
 
             //margin
             fotoHeigth -= margin[2] + margin[3];
@@ -795,7 +1047,8 @@ public abstract class AbstractImageList<T> extends JPanel implements MouseListen
             fotoWidth += (forceSqaueredImages ? 0 : (margin[2] + margin[3]));
             
         } else { // Vertikal
-            fotoWidth = this.getVisibleRect().width - 3;
+            computeVisibleRect(paintVisibleRect);
+            fotoWidth = paintVisibleRect.width - 3;
 
             //margin
             fotoWidth -= margin[0] + margin[1];
@@ -804,280 +1057,947 @@ public abstract class AbstractImageList<T> extends JPanel implements MouseListen
         }
 
 
-        for (int i = 0; i < images.size(); i++) {
+        updateScrollVelocity();
 
-            if(align==Alignment.Horizontal && (getImageXPosition(i)+fotoWidth < 0 || getImageXPosition(i)>getWidth())){
-                continue;
-            }else if(align==Alignment.Vertical && (getImageYPosition(i)+fotoHeigth < 0 || getImageYPosition(i)>getHeight())){
+        if (fotoWidth != renderCacheWidth || fotoHeigth != renderCacheHeigth) {
+            // neue Kachelgröße => alle skalierten Bilder sind ungültig
+            invalidateRenderCache();
+            renderCacheWidth = fotoWidth;
+            renderCacheHeigth = fotoHeigth;
+        }
+
+        State state = getState();
+        if (titleLayoutsInvalid || fotoWidth != titleLayoutWidth || !titleFont.equals(titleLayoutFont)) {
+            // neue Kachelbreite oder Schrift => Titel neu kürzen
+            titleLayoutsInvalid = false;
+            titleLayoutWidth = fotoWidth;
+            titleLayoutFont = titleFont;
+            titleLayouts = new TitleLayout[state.count()];
+        } else if (titleLayouts.length != state.count()) {
+            titleLayouts = Arrays.copyOf(titleLayouts, state.count());
+        }
+
+        Rectangle clip = paintClipRect;
+        clip.setBounds(0, 0, getWidth(), getHeight());
+        g.getClipBounds(clip);
+        int lastVisible = Math.min(getLastVisibleIndex(), state.count() - 1);
+        for (int i = getFirstVisibleIndex(); i <= lastVisible; i++) {
+
+            if(!isImageVisible(i)){
                 continue;
             }
 
-            Rectangle prefered = new Rectangle(getImageXPosition(i), getImageYPosition(i), fotoWidth, fotoHeigth);
-            Rectangle paddingRect = new Rectangle(prefered.x+padding[0], prefered.y+padding[2], prefered.width-(padding[0]+padding[1]), prefered.heigth-(padding[2]+padding[3]));
-            if(!forceSqaueredImages){
-                paddingRect = ScaleImage.fitToRect(paddingRect, (BufferedImage) images.get(i));
+            // Bilder außerhalb des neu zu zeichnenden Bereichs überspringen, außer die Bilder die gerade getauscht werden
+            if (i != swapPositions[0][0] && i != swapPositions[1][0] && !clip.intersects(getTileBounds(i, paintTileRect))) {
+                continue;
             }
-            Rectangle imageRect = ScaleImage.fitToRect(prefered, (BufferedImage) images.get(i));
 
-            if (i != swapPositions[0][0] && i != swapPositions[1][0]) {
-                g.drawImage(images.get(i), paddingRect.x, paddingRect.y, paddingRect.width, paddingRect.heigth, this);
-            } else {
-                g.setColor(Color.WHITE);
-                g.drawRect(getImageXPosition(i), getImageYPosition(i), fotoWidth, fotoHeigth);
+            int[] moves = reorderMoves;
+            if (moves != null && i < moves.length && moves[i] != i) {
+                // wird von der Umsortierung gezeichnet
+                continue;
             }
 
+            paintTile(g, state, i, tileX(i), tileY(i), align);
+        }
 
-            if (selectedImageIndex == i && selectColor != null) {
-                g.setColor(selectColor);
-                g.drawRect(prefered.x, prefered.y, prefered.width, prefered.heigth);
+        paintReorderedTiles(g, state, clip, align);
 
-            } else if (mouseOverPicNumber == i && hoverColor != null) {
-                g.setColor(hoverColor);
-                g.drawRect(prefered.x, prefered.y, prefered.width, prefered.heigth);
-            }//TODO border
+        visibleRangePainted(getFirstVisibleIndex(), lastVisible);
 
+    }
 
+    /**
+     * Draws an image scaled to the rectangle.<br/>
+     * The scaled image is taken from the render cache, so an image is only scaled once per tile size
+     * instead of being scaled by Java2D in every frame.
+     * @param g graphics
+     * @param img image
+     * @param x x position
+     * @param y y position
+     * @param width width of the drawn image
+     * @param heigth height of the drawn image
+     * @see #setRenderCacheSize(long)
+     */
+    protected void drawTile(Graphics g, Image img, int x, int y, int width, int heigth) {
+        Image scaled = getRenderedTile(img, width, heigth);
+        if (scaled == null) {
+            ImagePyramid p = pyramid;
+            // bis die passende Stufe erzeugt ist, wird die nächstgrößere gezeichnet
+            g.drawImage(p == null ? img : p.getNearestLevel(img, width, heigth), x, y, width, heigth, this);
+        } else if (!drawVolatileTile(g, scaled, x, y)) {
+            g.drawImage(scaled, x, y, this);
+        }
+    }
 
-            if (titleColor != null) {
-                g.setFont(titleFont);
-                g.setColor(titleColor);
-                String title = titles.get(i);
-                int textintend = fotoWidth / 2 - (g.getFontMetrics().stringWidth(title)) / 2;
-                while (textintend < 0 && title.length() > 4) {
-                    title = title.substring(0, title.length() - 4) + "...";
-                    textintend = fotoWidth / 2 - (g.getFontMetrics().stringWidth(title)) / 2;
-                }
+    /**
+     * Draws the copy of the scaled image from the graphics memory, a lost copy is restored first.
+     * @return false if the image has to be drawn from the main memory
+     */
+    private boolean drawVolatileTile(Graphics g, Image scaled, int x, int y) {
+        ImageCache<Image> cache = volatileCache;
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        if (cache == null || gc == null) {
+            return false;
+        }
 
-                int titleYPos;
-                switch (titleYPosition) {
-                    case AtBottom:
-                        titleYPos = fotoHeigth - g.getFont().getSize();
-                        break;
-                    case Center:
-                        titleYPos = fotoHeigth / 2 + g.getFont().getSize() / 2 - g.getFont().getSize();
-                        break;
-                    case UnderBottom:
-                        titleYPos = fotoHeigth;
-                        break;
-                    case UnderTop:
-                        titleYPos = 0;
-                        break;
-                    default:
-                        titleYPos = titleYPosition.getPosition();
-                        break;
-                }
+        VolatileImage old = (VolatileImage) cache.get(scaled);
+        VolatileImage vi = ScaleImage.validateVolatileImage(old, scaled, gc);
+        if (vi == null) {
+            cache.remove(scaled);
+            return false;
+        }
+        if (vi != old) {
+            cache.put(scaled, vi);
+        }
 
-                g.drawString(title, getImageXPosition(i) + textintend, getImageYPosition(i) + titleYPos + g.getFont().getSize());
-            }
+        g.drawImage(vi, x, y, this);
+        // Inhalt während des Zeichnens verloren => aus dem Hauptspeicher zeichnen
+        return !vi.contentsLost();
+    }
+
+    /**
+     * Returns the image scaled to the specified size from the render cache, a missing one is scaled and stored.
+     * @return scaled image or <b>null</b> if the image can't be cached
+     */
+    private Image getRenderedTile(Image img, int width, int heigth) {
+        ImageCache<Image> cache = renderCache;
+        int imgWidth = img.getWidth(null);
+        int imgHeigth = img.getHeight(null);
+        if (cache == null || width <= 0 || heigth <= 0 || imgWidth <= 0 || imgHeigth <= 0) {
+            return null;
+        }
+        if (imgWidth == width && imgHeigth == heigth && img instanceof BufferedImage
+                && ScaleImage.isCompatibleImage((BufferedImage) img, getGraphicsConfiguration())) {
+            // muss weder skaliert noch umgewandelt werden
+            return img;
+        }
 
+        Image scaled = cache.get(img);
+        if (scaled != null && scaled.getWidth(null) == width && scaled.getHeight(null) == heigth) {
+            return scaled;
+        }
 
-            if (i == swapPositions[0][0]) {
-                if (align == Alignment.Horizontal) {
-                    //g.drawImage(images.get(i), imageRect.x, imageRect.y, imageRect.width, imageRect.heigth, this);
-                    g.drawImage(images.get(i), swapPositions[0][1] + getImageXPosition(i) - imageRect.x, imageRect.y, imageRect.width, imageRect.heigth, this);
-                } else {
-                    g.drawImage(images.get(i), imageRect.x, swapPositions[0][1] + getImageYPosition(i) - imageRect.y, fotoWidth, fotoHeigth, this);
-                }
-            } else if (i == swapPositions[1][0]) {
-                if (align == Alignment.Horizontal) {
-                    g.drawImage(images.get(i), swapPositions[1][1] + getImageXPosition(i) - imageRect.x, imageRect.y, imageRect.width, imageRect.heigth, this);
-                } else {
-                    g.drawImage(images.get(i), imageRect.x, swapPositions[1][1] + getImageYPosition(i) - imageRect.y, fotoWidth, fotoHeigth, this);
-                }
+        Image src = img;
+        ImagePyramid p = pyramid;
+        if (p != null) {
+            src = p.getLevel(img, width, heigth);
+            if (src == null) {
+                // wird im Hintergrund erzeugt
+                return null;
             }
-
         }
 
+        int transparency = img instanceof BufferedImage ? ((BufferedImage) img).getTransparency() : Transparency.TRANSLUCENT;
+        BufferedImage tile = ScaleImage.createCompatibleImage(width, heigth, transparency, getGraphicsConfiguration());
+        Graphics2D g = tile.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        boolean complete = g.drawImage(src, 0, 0, width, heigth, null);
+        g.dispose();
+
+        if (!complete) {
+            // Bild wird noch geladen (Toolkit Bilder), nicht speichern
+            return null;
+        }
+        cache.put(img, tile);
+        return tile;
     }
 
     /**
-     * Clear the image list<br>
-     * <b>Bei überschreiben unbedingt repaint() nicht vergessen!</b>
+     * Removes all scaled images from the render cache, they are scaled again when they are drawn.<br/>
+     * Is called automatically if the tile size, the margin or the padding changes.
      */
-    public synchronized void clear() {
-        images.clear();
-        titles.clear();
-        position = 0;
-        dragStart = 0;
-        oldpos = 0;
-        wheel = 0;
-        t = null;
-        wannaDrag = false;
-        isMoving = false;
-        mouseOverPicNumber = -1;
-        centeringImage = -1;
-        selectedImageIndex = -1;
+    protected void invalidateRenderCache() {
+        ImageCache<Image> cache = renderCache;
+        if (cache != null) {
+            cache.clear();
+        }
+        cache = volatileCache;
+        if (cache != null) {
+            cache.clear();
+        }
     }
 
-    @Override
-    public void mouseClicked(MouseEvent e) {
-        if (mouseOverPicNumber >= 0 && selectingAllowed) {
-            selectedImageIndex = mouseOverPicNumber;
-            repaint();
-        } else {
-            selectedImageIndex = -1;
-            repaint();
+    /**
+     * Sets the maximum total size of the scaled images which are kept for paint().<br/>
+     * Default: 32 MB
+     * @param bytes size of the pixel data in bytes, 0 disables the render cache
+     */
+    public synchronized void setRenderCacheSize(long bytes) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("Ungültige Cachegröße: " + bytes);
         }
 
-        fireImageSelected(selectedImageIndex);
+        if (bytes == 0) {
+            renderCache = null;
+        } else if (renderCache == null) {
+            renderCache = new ImageCache<Image>(bytes);
+        } else {
+            renderCache.setMaxSize(bytes);
+        }
+        if (volatileCache != null) {
+            if (bytes == 0) {
+                volatileCache.clear();
+            } else {
+                volatileCache.setMaxSize(bytes);
+            }
+        }
+        repaint();
     }
 
-    @Override
-    public void mousePressed(MouseEvent e) {
-        if (!draggingAllowed) {
-            return;
+    /**
+     * Sets the maximum total size of the image pyramid. The pyramid keeps downscaled levels of the images,
+     * each with half the size of the level before. The tiles are scaled from the smallest level which is at least as big
+     * as the tile, so a new tile size (e.g. while a split pane is dragged) only scales small images by at most a factor of 2.
+     * Missing levels are created in the background, until then the next bigger level is drawn.<br/>
+     * Default: 0 (disabled)
+     * @param bytes size of the pixel data of the levels in bytes, 0 disables the pyramid
+     * @see ImagePyramid
+     */
+    public synchronized void setPyramidSize(long bytes) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("Ungültige Cachegröße: " + bytes);
         }
 
-        wannaDrag = true;
-        currentWheelMovingIsAllowed = mouseWheelSensivity;
-        centeringImage = -1;
+        if (bytes == 0) {
+            if (pyramid != null) {
+                pyramid.clear();
+            }
+            pyramid = null;
+        } else if (pyramid == null) {
+            pyramid = new ImagePyramid(bytes, getPyramidExecutor()) {
 
-        if (align == Alignment.Horizontal || align == null) {
-            dragStart = e.getX();
+                @Override
+                protected void levelCreated(Image img, int level) {
+                    repaint();
+                }
+            };
         } else {
-            dragStart = e.getY();
+            pyramid.setMaxSize(bytes);
         }
+        invalidateRenderCache();
+        repaint();
     }
 
-    @Override
-    public synchronized void mouseReleased(MouseEvent e) {
-        wannaDrag = false;
-        Alignment align = this.align == Alignment.Horizontal || this.align == null ? Alignment.Horizontal : Alignment.Vertical;
-
-        //HORIZONTAL!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!
-        if (align == Alignment.Horizontal) {
-            if (images.size() > 0
-                    && getImageXPosition(images.size() - 1) < getAlignmentX()
-                    + spaceBetweenPics && slideAfterDrag) {
-                
-                new Thread() {
+    /**
+     * Returns the maximum total size of the image pyramid.
+     * @return size in bytes, 0 if the pyramid is disabled
+     */
+    public long getPyramidSize() {
+        ImagePyramid p = pyramid;
+        return p == null ? 0 : p.getMaxSize();
+    }
 
-                    @Override
-                    public void run() {
-                        isMoving = true;
+    /**
+     * Returns the image pyramid, e.g. for statistics.
+     * @return pyramid or <b>null</b> if it is disabled
+     */
+    public ImagePyramid getPyramid() {
+        return pyramid;
+    }
 
-                        int sollPosition = -(images.size() - 1) * (fotoWidth + spaceBetweenPics);
-                        int strecke = Math.abs(position - sollPosition);
+    /**
+     * Returns the executor which creates the levels of the pyramids, a single background thread with low priority
+     * which is shared by all lists.
+     * @return executor
+     */
+    protected static synchronized Executor getPyramidExecutor() {
+        if (pyramidExecutor == null) {
+            pyramidExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
 
-                        while (!wannaDrag && position < sollPosition) {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "ImageList pyramid");
+                    t.setDaemon(true);
+                    t.setPriority(Thread.MIN_PRIORITY);
+                    return t;
+                }
+            });
+        }
+        return pyramidExecutor;
+    }
 
-                            strecke = Math.abs(position - sollPosition);
+    /**
+     * Keeps a copy of the scaled images in the graphics memory (VolatileImage), so they are drawn by the graphics card.<br/>
+     * Copies whose contents were lost (e.g. display change) are restored automatically.
+     * Without a screen or without the render cache the images are drawn from the main memory.<br/>
+     * Default: false
+     * @param volatileTiles true to use VolatileImages
+     * @see #setRenderCacheSize(long)
+     */
+    public synchronized void setVolatileTiles(boolean volatileTiles) {
+        if (volatileTiles && volatileCache == null) {
+            volatileCache = new ImageCache<Image>(Math.max(getRenderCacheSize(), 1)) {
 
-                            position += strecke / (fotoWidth / 10 + 1);
+                @Override
+                protected void removed(Image key, Image img) {
+                    img.flush();
+                }
+            };
+        } else if (!volatileTiles && volatileCache != null) {
+            volatileCache.clear();
+            volatileCache = null;
+        }
+        repaint();
+    }
 
-                            try {
-                                sleep(20);
-                            } catch (InterruptedException ex) {
-                            }
-                            repaint();
+    /**
+     * Returns whether copies of the scaled images are kept in the graphics memory.
+     * @return true if VolatileImages are used
+     */
+    public boolean isVolatileTiles() {
+        return volatileCache != null;
+    }
 
+    /**
+     * Returns the maximum total size of the scaled images which are kept for paint().
+     * @return size in bytes, 0 if the render cache is disabled
+     */
+    public long getRenderCacheSize() {
+        ImageCache<Image> cache = renderCache;
+        return cache == null ? 0 : cache.getMaxSize();
+    }
 
-                        }
+    /**
+     * Returns the cache of the scaled images, e.g. for statistics.
+     * @return render cache or <b>null</b> if it is disabled
+     */
+    public ImageCache<Image> getRenderCache() {
+        return renderCache;
+    }
 
-                        oldpos = position;
-                        isMoving = false;
-                    }
-                }.start();
-            } else if (images.size() > 0
-                    && getImageXPosition(0) > getAlignmentX() + getWidth()
-                    - fotoWidth - spaceBetweenPics && slideAfterDrag) {
+    /**
+     * Draws the image with the specified index, its border and its title at the position.
+     */
+    private void paintTile(Graphics g, State state, int i, int imageX, int imageY, Alignment align) {
+        Image img = getTile(state, i);
+        int imgWidth;
+        int imgHeigth;
+        if (img != null && img == state.images[i] && state.widths != null && state.widths[i] > 0) {
+            // beim Einfügen ermittelt
+            imgWidth = state.widths[i];
+            imgHeigth = state.heigths[i];
+        } else {
+            imgWidth = img == null ? -1 : img.getWidth(null);
+            imgHeigth = img == null ? -1 : img.getHeight(null);
+        }
+        boolean sizeKnown = imgWidth > 0 && imgHeigth > 0;
 
-                new Thread() {
+        Rectangle paddingRect = paintPaddingRect;
+        paddingRect.setBounds(imageX + padding[0], imageY + padding[2], fotoWidth - (padding[0] + padding[1]), fotoHeigth - (padding[2] + padding[3]));
+        if(!forceSqaueredImages && sizeKnown){
+            ScaleImage.fitToRect(paddingRect.x, paddingRect.y, paddingRect.width, paddingRect.height, imgWidth, imgHeigth, paddingRect);
+        }
+        Rectangle imageRect = paintImageRect;
+        if (sizeKnown) {
+            ScaleImage.fitToRect(imageX, imageY, fotoWidth, fotoHeigth, imgWidth, imgHeigth, imageRect);
+        } else {
+            imageRect.setBounds(imageX, imageY, fotoWidth, fotoHeigth);
+        }
 
-                    @Override
-                    public void run() {
-                        isMoving = true;
+        if (img == null) {
+            paintPlaceholder(g, paddingRect.x, paddingRect.y, paddingRect.width, paddingRect.height);
+        } else if (i != swapPositions[0][0] && i != swapPositions[1][0]) {
+            drawTile(g, img, paddingRect.x, paddingRect.y, paddingRect.width, paddingRect.height);
+        } else {
+            g.setColor(Color.WHITE);
+            g.drawRect(imageX, imageY, fotoWidth, fotoHeigth);
+        }
 
-                        int sollPosition = AbstractImageList.this.getWidth() - (fotoWidth + spaceBetweenPics);
-                        int strecke = Math.abs(sollPosition - position);
 
-                        while (!wannaDrag && position > sollPosition) {
+        if (selectedImageIndex == i && selectColor != null) {
+            g.setColor(selectColor);
+            g.drawRect(imageX, imageY, fotoWidth, fotoHeigth);
+
+        } else if (mouseOverPicNumber == i && hoverColor != null) {
+            g.setColor(hoverColor);
+            g.drawRect(imageX, imageY, fotoWidth, fotoHeigth);
+        }//TODO border
+
+
+
+        if (titleColor != null) {
+            g.setFont(titleFont);
+            g.setColor(titleColor);
+            TitleLayout layout = layoutTitle(state.titles[i], i, g.getFontMetrics());
+            String title = layout.shown;
+            int textintend = layout.indent;
+
+            int titleYPos;
+            switch (titleYPosition) {
+                case AtBottom:
+                    titleYPos = fotoHeigth - g.getFont().getSize();
+                    break;
+                case Center:
+                    titleYPos = fotoHeigth / 2 + g.getFont().getSize() / 2 - g.getFont().getSize();
+                    break;
+                case UnderBottom:
+                    titleYPos = fotoHeigth;
+                    break;
+                case UnderTop:
+                    titleYPos = 0;
+                    break;
+                default:
+                    titleYPos = titleYPosition.getPosition();
+                    break;
+            }
 
-                            strecke = Math.abs(position - sollPosition);
+            g.drawString(title, imageX + textintend, imageY + titleYPos + g.getFont().getSize());
+        }
 
-                            position -= strecke / (fotoWidth / 10) + 1;
 
-                            try {
-                                sleep(20);
-                            } catch (InterruptedException ex) {
-                            }
-                            repaint();
-                        }
-                        oldpos = position;
-                        isMoving = false;
-                    }
-                }.start();
+        if (img == null) {
+            return;
+        } else if (i == swapPositions[0][0]) {
+            if (align == Alignment.Horizontal) {
+                g.drawImage(img, swapPositions[0][1] + imageX - imageRect.x, imageRect.y, imageRect.width, imageRect.height, this);
+            } else {
+                g.drawImage(img, imageRect.x, swapPositions[0][1] + imageY - imageRect.y, fotoWidth, fotoHeigth, this);
             }
+        } else if (i == swapPositions[1][0]) {
+            if (align == Alignment.Horizontal) {
+                g.drawImage(img, swapPositions[1][1] + imageX - imageRect.x, imageRect.y, imageRect.width, imageRect.height, this);
+            } else {
+                g.drawImage(img, imageRect.x, swapPositions[1][1] + imageY - imageRect.y, fotoWidth, fotoHeigth, this);
+            }
+        }
+    }
 
-            oldpos = position;
+    /**
+     * Repaints only the area of the image with the specified index, e.g. after the hover or the selection changed.
+     * @param index image index, invalid indexes are ignored
+     */
+    protected void repaintTile(int index) {
+        if (index < 0 || index >= count()) {
+            return;
+        }
 
-            repaint();
-        } //VERTIKAL !!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!
-        else {
-            if (images.size() > 0
-                    && getImageYPosition(images.size() - 1) < getAlignmentY()
-                    + spaceBetweenPics && slideAfterDrag) {
-                new Thread() {
+        Rectangle r = getTileBounds(index, new Rectangle());
+        repaint(r.x, r.y, r.width, r.height);
+    }
 
-                    @Override
-                    public void run() {
-                        isMoving = true;
+    /**
+     * Computes the area which is painted for the image with the specified index, including the border and the title.
+     * @param index image index
+     * @param out rectangle in which the result is written
+     * @return out
+     */
+    protected Rectangle getTileBounds(int index, Rectangle out) {
+        if (align == Alignment.Vertical) {
+            // der Titel kann unter dem Bild stehen
+            out.setBounds(0, tileY(index) - 1, getWidth(), fotoHeigth + 3 + 2 * titleFont.getSize());
+        } else {
+            out.setBounds(tileX(index) - 1, 0, fotoWidth + 3, getHeight());
+        }
+        return out;
+    }
 
-                        int sollPosition = -(images.size() - 1) * (fotoHeigth + spaceBetweenPics);
-                        int strecke = Math.abs(position - sollPosition);
+    /**
+     * Measures the change of the position since the last paint() call.
+     */
+    private void updateScrollVelocity() {
+        long now = System.nanoTime();
+        long dt = now - lastPaintTime;
+        double v = dt > 0 ? (position - lastPaintPosition) * 1e9 / dt : 0;
 
-                        while (!wannaDrag && position < sollPosition) {
+        if (lastPaintTime == 0 || dt > 250000000L) {
+            // nach einer Pause wird neu gemessen
+            scrollVelocity = 0;
+        } else {
+            scrollVelocity = (scrollVelocity + v) / 2;
+        }
 
-                            strecke = Math.abs(position - sollPosition);
+        lastPaintPosition = position;
+        lastPaintTime = now;
+    }
 
-                            position += strecke / (fotoWidth / 10 + 1);
+    /**
+     * Returns the current scroll velocity, measured from the position changes between the painted frames.
+     * @return velocity in pixels per second, negative if the list scrolls to higher indexes
+     * @see #getScrollDirection()
+     */
+    protected double getScrollVelocity() {
+        return scrollVelocity;
+    }
 
-                            try {
-                                sleep(20);
-                            } catch (InterruptedException ex) {
-                            }
-                            repaint();
-                        }
-                        oldpos = position;
-                        isMoving = false;
-                    }
-                }.start();
-            } else if (images.size() > 0
-                    && getImageYPosition(0) > getAlignmentY() + getHeight()
-                    - fotoHeigth - spaceBetweenPics && slideAfterDrag) {
-                
-                new Thread() {
+    /**
+     * Returns the current scroll direction.
+     * @return 1 if the list scrolls to higher indexes, -1 if it scrolls to lower indexes, 0 if it doesn't scroll
+     * @see #getScrollVelocity()
+     */
+    protected int getScrollDirection() {
+        if (scrollVelocity < -50) {
+            return 1;
+        }
+        if (scrollVelocity > 50) {
+            return -1;
+        }
+        return 0;
+    }
 
-                    @Override
-                    public void run() {
-                        isMoving = true;
+    /**
+     * Returns the image which is drawn for the specified index.<br/>
+     * By default this is the image of the snapshot, subclasses which load their images on demand
+     * return <b>null</b> as long as the image isn't available, then a placeholder is drawn.
+     * @param state snapshot which is drawn
+     * @param index image index
+     * @return image or <b>null</b>
+     * @see #paintPlaceholder(java.awt.Graphics, int, int, int, int)
+     */
+    protected Image getTile(State state, int index) {
+        return state.images[index];
+    }
 
-                        int sollPosition = AbstractImageList.this.getHeight() - (fotoWidth + spaceBetweenPics);
-                        int strecke = Math.abs(sollPosition - position);
+    /**
+     * Immutable copy of the images and titles. paint() draws it without locking the list.
+     * @see AbstractImageList#getState()
+     */
+    protected static class State {
 
-                        while (!wannaDrag && position > sollPosition) {
+        /**
+         * Images, must not be modified
+         */
+        public final Image[] images;
+        /**
+         * Titles, must not be modified
+         */
+        public final String[] titles;
+        /**
+         * Widths and heights of the images, -1 if unknown, must not be modified
+         */
+        public final int[] widths;
+        public final int[] heigths;
 
-                            strecke = Math.abs(position - sollPosition);
+        protected State(Image[] images, String[] titles) {
+            this(images, titles, null, null);
+        }
 
-                            position -= strecke / (fotoWidth / 10) + 1;
+        protected State(Image[] images, String[] titles, int[] widths, int[] heigths) {
+            this.images = images;
+            this.titles = titles;
+            this.widths = widths;
+            this.heigths = heigths;
+        }
 
-                            try {
-                                sleep(20);
-                            } catch (InterruptedException ex) {
-                            }
-                            repaint();
-                        }
-                        oldpos = position;
-                        isMoving = false;
-                    }
-                }.start();
+        /**
+         * Creates a snapshot with the data of another snapshot, for subclasses which add data.
+         * @param state snapshot
+         */
+        protected State(State state) {
+            this(state.images, state.titles, state.widths, state.heigths);
+        }
+
+        /**
+         * Returns the number of images
+         * @return image count
+         */
+        public int count() {
+            return images.length;
+        }
+    }
+
+    /**
+     * Returns the current snapshot of the list.<br/>
+     * The modifications of the lists only mark the snapshot as changed, a new snapshot is taken by the next call of getState().
+     * So any number of modifications between two frames costs only one copy.
+     * @return snapshot
+     */
+    protected State getState() {
+        if (stateChanged) {
+            synchronized (this) {
+                if (stateChanged) {
+                    stateChanged = false;
+                    state = createState();
+                }
             }
+        }
+        return state;
+    }
 
-            oldpos = position;
+    /**
+     * Creates a new snapshot, is called while holding the lock of the list.<br/>
+     * Subclasses which need more data in paint() can return a subclass of State.
+     * @return snapshot
+     */
+    protected State createState() {
+        int n = items.size();
+        return new State(items.toArray(IMAGE_COLUMN, new Image[n]), items.toArray(TITLE_COLUMN, new String[n]),
+                items.toIntArray(widthColumn, new int[n]), items.toIntArray(heigthColumn, new int[n]));
+    }
+
+    /**
+     * Invalidates the title layouts of all images, they are laid out again when they are drawn.<br/>
+     * Doesn't lock the list, the layouts are dropped by the next paint().
+     */
+    protected void invalidateTitleLayouts() {
+        titleLayoutsInvalid = true;
+    }
+
+    /**
+     * Layout of a title: the shown text (shortened with "...") and its x-offset in the tile
+     */
+    private static final class TitleLayout {
+
+        final String title;
+        final String shown;
+        final int indent;
+
+        TitleLayout(String title, String shown, int indent) {
+            this.title = title;
+            this.shown = shown;
+            this.indent = indent;
+        }
+    }
+
+    /**
+     * Returns the layout of the title of the index, a missing or outdated layout is computed and cached for the next frames.
+     */
+    private TitleLayout layoutTitle(String title, int i, FontMetrics fm) {
+        TitleLayout[] layouts = titleLayouts;
+        TitleLayout layout = i < layouts.length ? layouts[i] : null;
+        if (layout != null && layout.title == title) {
+            return layout;
+        }
+
+        String shown = shownTitle(title, truncateTitle(fm, title, fotoWidth));
+        layout = new TitleLayout(title, shown, fotoWidth / 2 - fm.stringWidth(shown) / 2);
+        if (i < layouts.length) {
+            layouts[i] = layout;
+        }
+        return layout;
+    }
+
+    /**
+     * Returns the number of characters of the title which fit into the width together with "...".
+     * The result is searched binary over the number of characters, at least one character is kept.
+     * Titles with up to 4 characters are never shortened.
+     * @param fm font metrics of the title font
+     * @param title title
+     * @param width available width
+     * @return number of characters, title.length() if the title fits completely
+     */
+    private static int truncateTitle(FontMetrics fm, String title, int width) {
+        int n = title.length();
+        if (n <= 4 || width / 2 - fm.stringWidth(title) / 2 >= 0) {
+            return n;
+        }
+
+        char[] chars = title.toCharArray();
+        int ellipsis = fm.stringWidth("...");
+        int low = 1;
+        int high = n - 4;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (width / 2 - (fm.charsWidth(chars, 0, mid) + ellipsis) / 2 >= 0) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    private static String shownTitle(String title, int length) {
+        return length >= title.length() ? title : title.substring(0, length) + "...";
+    }
+
+    /**
+     * View of a column of the items. Values can be read and set,
+     * rows are inserted and removed by the item methods of the list.<br/>
+     * It isn't a List on purpose: adding or removing values of a single column would move the columns apart.
+     * @param <E> element type
+     * @see AbstractImageList#items
+     * @see #insertItem(int, java.awt.Image, java.lang.String)
+     * @see #removeItems(int, int)
+     */
+    protected class ItemColumn<E> {
+
+        private final int column;
+
+        /**
+         * Creates a view of a column
+         * @param column column of the items
+         */
+        public ItemColumn(int column) {
+            this.column = column;
+        }
+
+        /**
+         * Returns the value of the row
+         * @param index row
+         * @return value
+         */
+        @SuppressWarnings("unchecked")
+        public E get(int index) {
+            return (E) items.get(column, index);
+        }
+
+        /**
+         * Sets the value of the row
+         * @param index row
+         * @param element value
+         * @return previous value
+         */
+        @SuppressWarnings("unchecked")
+        public E set(int index, E element) {
+            E old = (E) items.set(column, index, element);
+            if (column == IMAGE_COLUMN) {
+                Image img = (Image) element;
+                items.setInt(widthColumn, index, img == null ? -1 : img.getWidth(null));
+                items.setInt(heigthColumn, index, img == null ? -1 : img.getHeight(null));
+            }
+            return old;
+        }
+
+        /**
+         * Returns the number of rows
+         * @return number of rows
+         */
+        public int size() {
+            return items.size();
+        }
+
+        public boolean isEmpty() {
+            return items.size() == 0;
+        }
+
+        /**
+         * Returns the first row whose value equals the object
+         * @param o object, can be <b>null</b>
+         * @return row or -1
+         */
+        public int indexOf(Object o) {
+            for (int i = 0; i < items.size(); i++) {
+                Object e = items.get(column, i);
+                if (o == null ? e == null : o.equals(e)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Copies the values of the rows <i>from</i> (inclusive) to <i>to</i> (exclusive)
+         * @param from first row
+         * @param to row after the last row
+         * @return new list
+         */
+        @SuppressWarnings("unchecked")
+        public List<E> copy(int from, int to) {
+            List<E> values = new ArrayList<E>(to - from);
+            for (int i = from; i < to; i++) {
+                values.add((E) items.get(column, i));
+            }
+            return values;
+        }
+    }
+
+    /**
+     * Inserts an item at the position, the items behind it move one position back.
+     * The further columns of the item are <b>null</b>.
+     * @param pos position, 0 to count()
+     * @param img image
+     * @param title title, <b>null</b> for no title
+     */
+    protected void insertItem(int pos, Image img, String title) {
+        items.insert(pos);
+        images.set(pos, img);
+        titles.set(pos, title == null ? "" : title);
+        countChanged();
+    }
+
+    /**
+     * Appends an item.
+     * @param img image
+     * @param title title, <b>null</b> for no title
+     * @return position of the item
+     * @see #insertItem(int, java.awt.Image, java.lang.String)
+     */
+    protected int addItem(Image img, String title) {
+        int pos = items.size();
+        insertItem(pos, img, title);
+        return pos;
+    }
+
+    /**
+     * Removes the items from <i>from</i> (inclusive) to <i>to</i> (exclusive) with all their columns.
+     * @param from first item
+     * @param to item after the last item
+     */
+    protected void removeItems(int from, int to) {
+        items.remove(from, to);
+        countChanged();
+    }
+
+    /**
+     * Beendet eine laufende Umsortierung, ihre Positionen passen nicht mehr zu den Bildern.
+     * Da sich die Anzahl geändert hat, wird sie nicht mehr durchgeführt.
+     */
+    private void countChanged() {
+        if (reorderMoves != null) {
+            finishSwaps();
+        }
+    }
+
+    /**
+     * Moves a block of items with all their columns to another position.
+     * @param from first item of the block
+     * @param count number of items in the block
+     * @param to position of the first item after the move
+     */
+    protected void moveItems(int from, int count, int to) {
+        items.move(from, count, to);
+    }
+
+    /**
+     * Draws the placeholder for an image which isn't available yet.
+     * @param g graphics
+     * @param x x position
+     * @param y y position
+     * @param width width
+     * @param heigth height
+     * @see #getTile(de.realriu.riulib.gui.imagelist.AbstractImageList.State, int)
+     */
+    protected void paintPlaceholder(Graphics g, int x, int y, int width, int heigth) {
+        g.setColor(Color.GRAY);
+        g.drawRect(x, y, width, heigth);
+    }
+
+    /**
+     * Is called at the end of paint() with the range of images which were visible.<br/>
+     * Subclasses which load their images on demand can start loading here. The default implementation does nothing.
+     * @param first index of the first visible image
+     * @param last index of the last visible image (last&lt;first if no image is visible)
+     */
+    protected void visibleRangePainted(int first, int last) {
+    }
+
+    /**
+     * Clear the image list<br>
+     * <b>Bei überschreiben unbedingt repaint() nicht vergessen!</b>
+     */
+    public synchronized void clear() {
+        items.clear();
+        position = 0;
+        dragStart = 0;
+        oldpos = 0;
+        wannaDrag = false;
+        mouseOverPicNumber = -1;
+        centeringImage = -1;
+        selectedImageIndex = -1;
+        invalidateRenderCache();
+        if (pyramid != null) {
+            pyramid.clear();
+        }
+        animator.cancel(scrollChannel);
+        animator.cancel(swapChannel);
+        reorderMoves = null;
+    }
+
+    @Override
+    public void mouseClicked(MouseEvent e) {
+        int old = selectedImageIndex;
+        if (mouseOverPicNumber >= 0 && selectingAllowed) {
+            selectedImageIndex = mouseOverPicNumber;
+        } else {
+            selectedImageIndex = -1;
+        }
+        repaintTile(old);
+        repaintTile(selectedImageIndex);
+
+        fireImageSelected(selectedImageIndex);
+    }
+
+    @Override
+    public void mousePressed(MouseEvent e) {
+        if (!draggingAllowed) {
+            return;
+        }
+
+        wannaDrag = true;
+        centeringImage = -1;
+        animator.cancel(scrollChannel);
+
+        if (align == Alignment.Horizontal || align == null) {
+            dragStart = e.getX();
+        } else {
+            dragStart = e.getY();
+        }
+    }
+
+    @Override
+    public synchronized void mouseReleased(MouseEvent e) {
+        wannaDrag = false;
+        boolean horizontal = align != Alignment.Vertical;
+        int tileSize = (horizontal ? fotoWidth : fotoHeigth) + spaceBetweenPics;
+
+        if (slideAfterDrag && isScrolledBeyondEnd()) {
+            animator.start(scrollChannel, new SlideAnimation(-(images.size() - 1) * tileSize));
+        } else if (slideAfterDrag && isScrolledBeyondStart()) {
+            animator.start(scrollChannel, new SlideAnimation((horizontal ? getWidth() : getHeight()) - tileSize));
+        }
+
+        oldpos = position;
+        repaint();
+    }
+
+    /**
+     * Returns whether the last image was scrolled over the beginning of the component.
+     */
+    private boolean isScrolledBeyondEnd() {
+        if (images.isEmpty()) {
+            return false;
+        }
 
+        if (align == Alignment.Vertical) {
+            return getImageYPosition(images.size() - 1) < getAlignmentY() + spaceBetweenPics;
+        }
+        return getImageXPosition(images.size() - 1) < getAlignmentX() + spaceBetweenPics;
+    }
+
+    /**
+     * Returns whether the first image was scrolled over the end of the component.
+     */
+    private boolean isScrolledBeyondStart() {
+        if (images.isEmpty()) {
+            return false;
+        }
+
+        if (align == Alignment.Vertical) {
+            return getImageYPosition(0) > getAlignmentY() + getHeight() - fotoHeigth - spaceBetweenPics;
+        }
+        return getImageXPosition(0) > getAlignmentX() + getWidth() - fotoWidth - spaceBetweenPics;
+    }
+
+    /**
+     * Slides the list back to a position after it was dragged over its end.
+     */
+    private class SlideAnimation implements Animator.Animation {
+
+        private final int target;
+
+        SlideAnimation(int target) {
+            this.target = target;
+        }
+
+        @Override
+        public boolean step() {
+            if (wannaDrag || position == target) {
+                return false;
+            }
+
+            int distance = Math.abs(target - position);
+            int tileSize = align == Alignment.Vertical ? fotoHeigth : fotoWidth;
+            int step = Math.min(distance, distance / (tileSize / 10 + 1) + 1);
+            position += target > position ? step : -step;
             repaint();
+            return position != target;
         }
 
+        @Override
+        public void end(boolean cancelled) {
+            oldpos = position;
+        }
     }
 
     @Override
@@ -1171,155 +2091,136 @@ public abstract class AbstractImageList<T> extends JPanel implements MouseListen
         }
 
 
-        needRepaint = mouseOverPicNumber != i;
+        int old = mouseOverPicNumber;
+        needRepaint = old != i;
         mouseOverPicNumber = i;
 
         if (needRepaint) {
-            repaint();
+            // nur die beiden betroffenen Bilder neu zeichnen
+            repaintTile(old);
+            repaintTile(i);
             fireImageHovered(mouseOverPicNumber);
         }
     }
 
     @Override
     public synchronized void mouseWheelMoved(final MouseWheelEvent e) {
-        wheel = e.getWheelRotation();
-        final int wheelDirection = wheel > 0 ? 1 : -1;
         centeringImage = -1;
-        final Alignment align = (this.align == Alignment.Horizontal || this.align == null) ? Alignment.Horizontal : Alignment.Vertical;
-
-
-        if (currentWheelMovingIsAllowed > 0) {
-
-            currentWheelMovingIsAllowed--;
-            t = new Thread() {
-
-                @Override
-                public void run() {
-                    try {
-
-                        isMoving = true;
-
-                        boolean scrollCondition;
-
-                        if (align == Alignment.Horizontal) {
-                            scrollCondition = !(images.size() > 0 && getImageXPosition(images.size() - 1) < getAlignmentX()
-                                    + spaceBetweenPics)
-                                    && !(images.size() > 0 && getImageXPosition(0) > getAlignmentX()
-                                    + getWidth()
-                                    - fotoWidth
-                                    - spaceBetweenPics);
-                        } else {
-                            scrollCondition = !(images.size() > 0 && getImageYPosition(images.size() - 1) < getAlignmentY()
-                                    + spaceBetweenPics)
-                                    && !(images.size() > 0 && getImageYPosition(0) > getAlignmentY()
-                                    + getHeight()
-                                    - fotoHeigth
-                                    - spaceBetweenPics);
-                        }
-
-
-                        
-                        int t = 400;
-                        int s = ((align == Alignment.Horizontal ? fotoWidth : fotoHeigth) + spaceBetweenPics) * wheelDirection;
-                        double last = s * (1 - Math.pow(Math.E, -0.08 * 0));
-                        double next = last;
-                        
-
-
-
-                        for (int i = 1; !wannaDrag && i < 35 && scrollCondition; i++) {
+        if (mouseWheelSensivity <= 0) {
+            return;
+        }
 
-                            if (align == Alignment.Horizontal) {
-                                scrollCondition = !(images.size() > 0 && getImageXPosition(
-                                        images.size() - 1) < getAlignmentX()
-                                        + spaceBetweenPics)
-                                        && !(images.size() > 0 && getImageXPosition(0) > getAlignmentX()
-                                        + getWidth()
-                                        - fotoWidth
-                                        - spaceBetweenPics);
-                            } else {
-                                scrollCondition = !(images.size() > 0 && getImageYPosition(images.size() - 1) < getAlignmentY()
-                                        + spaceBetweenPics)
-                                        && !(images.size() > 0 && getImageYPosition(0) > getAlignmentY()
-                                        + getHeight()
-                                        - fotoHeigth
-                                        - spaceBetweenPics);
-                            }
-                            
-                            
-                            position += next - last;
+        int direction = e.getWheelRotation() > 0 ? 1 : -1;
+        if (wheelAnimation != null && animator.getAnimation(scrollChannel) == wheelAnimation && !wheelAnimation.isBraking()) {
+            // schnelles Drehen addiert sich zur laufenden Animation
+            wheelAnimation.addImpulse(direction, e);
+        } else {
+            wheelAnimation = new WheelAnimation();
+            wheelAnimation.addImpulse(direction, e);
+            animator.start(scrollChannel, wheelAnimation);
+        }
+    }
 
+    /**
+     * Scrolls for every wheel rotation one image further with a decelerating movement.
+     * Up to mouseWheelSensivity rotations are added, further ones are ignored.
+     * If the list is scrolled over its end it is slowed down and pushed back a little.
+     */
+    private class WheelAnimation implements Animator.Animation {
 
-                            last = next;
-                            next = s * (1 - Math.pow(Math.E, -0.08 * i));
+        private static final int STEPS = 35;
+        private static final int BRAKE_STEPS = 15;
+        /**
+         * direction and step of the running rotations
+         */
+        private final List<int[]> impulses = new ArrayList<int[]>();
+        private int braking = -1;
+        private int brakeDirection = 0;
+        private MouseWheelEvent event;
+
+        void addImpulse(int direction, MouseWheelEvent e) {
+            event = e;
+            if (impulses.size() < mouseWheelSensivity) {
+                impulses.add(new int[]{direction, 1});
+            }
+        }
 
-                            try {
-                                sleep(20);
-                            } catch (InterruptedException ex) {
-                            }
-                            repaint();
+        boolean isBraking() {
+            return braking >= 0;
+        }
 
-                        }
+        @Override
+        public boolean step() {
+            if (wannaDrag) {
+                return false;
+            }
 
-                        final boolean smallSlowCondition;
-                        final boolean bigSlowCondition;
-
-                        if (align == Alignment.Horizontal) {
-                            smallSlowCondition = images.size() > 0
-                                    && getImageXPosition(images.size() - 1) < getAlignmentX()
-                                    + spaceBetweenPics; //unterer Rand
-                            bigSlowCondition = images.size() > 0
-                                    && getImageXPosition(0) > getAlignmentX() + getWidth()
-                                    - fotoWidth - spaceBetweenPics; // oberer Rand
-                        } else {
-                            smallSlowCondition = images.size() > 0
-                                    && getImageYPosition(images.size() - 1) < getAlignmentY()
-                                    + spaceBetweenPics;
-
-                            bigSlowCondition = images.size() > 0
-                                    && getImageYPosition(0) > getAlignmentY() + getHeight()
-                                    - fotoHeigth - spaceBetweenPics;
+            if (braking < 0) {
+                boolean beyondEnd = isScrolledBeyondEnd();
+                boolean beyondStart = isScrolledBeyondStart();
+
+                if (!impulses.isEmpty() && !beyondEnd && !beyondStart) {
+                    int tileSize = (align == Alignment.Vertical ? fotoHeigth : fotoWidth) + spaceBetweenPics;
+                    Iterator<int[]> it = impulses.iterator();
+                    while (it.hasNext()) {
+                        int[] impulse = it.next();
+                        double s = tileSize * impulse[0];
+                        position += s * (1 - Math.pow(Math.E, -0.08 * impulse[1])) - s * (1 - Math.pow(Math.E, -0.08 * (impulse[1] - 1)));
+                        if (++impulse[1] >= STEPS) {
+                            it.remove();
                         }
+                    }
+                    repaint();
+                    return true;
+                }
 
+                impulses.clear();
+                if (!beyondEnd && !beyondStart) {
+                    return false;
+                }
 
-                        
-
-                        // Abbremsen 
-                        if (smallSlowCondition || bigSlowCondition) {
-                            
-                            isMoving = true;
-
-                            
-                            for (int i = 15; !wannaDrag && i > 0; i--) {
-
-                                position += (smallSlowCondition ? 1 : -1) * i/10;
-
-                                try {
-                                    sleep(20);
-                                } catch (InterruptedException ex) {
-                                }
-                                repaint();
-
-                            }
-                        }
+                // Abbremsen
+                braking = BRAKE_STEPS;
+                brakeDirection = beyondEnd ? 1 : -1;
+            }
 
-                        oldpos = position;
-                        isMoving = false;
+            position += brakeDirection * braking / 10;
+            braking--;
+            repaint();
+            return braking > 0;
+        }
 
-                        repaint();
+        @Override
+        public void end(boolean cancelled) {
+            oldpos = position;
+            repaint();
+            if (event != null) {
+                mouseMoved(event);
+            }
+        }
+    }
 
-                    } catch (NullPointerException e) {
-                    } catch (IndexOutOfBoundsException e) {
-                    }
+    /**
+     * Sets the animator which drives the animations of the list.<br/>
+     * Default: Animator.getShared()
+     * @param animator animator
+     */
+    public void setAnimator(Animator animator) {
+        if (animator == null) {
+            throw new IllegalArgumentException("Nullpointer für den Animator übergeben!");
+        }
 
-                    mouseMoved(e);
+        this.animator.cancel(scrollChannel);
+        this.animator.cancel(swapChannel);
+        this.animator = animator;
+    }
 
-                    currentWheelMovingIsAllowed++;
-                }
-            };
-            t.start();
-            t = null;
-        }
+    /**
+     * Returns the animator which drives the animations of the list, e.g. for its frame statistics.
+     * @return animator
+     */
+    public Animator getAnimator() {
+        return animator;
     }
 
     /**
@@ -1359,6 +2260,9 @@ public abstract class AbstractImageList<T> extends JPanel implements MouseListen
     }
 
     protected void fireImageAdded(T img) {
+        if (batchDepth > 0) {
+            return;
+        }
         repaint();
         for (ImageListListener<T> l : ills) {
             l.imageAdded(img);
@@ -1366,6 +2270,9 @@ public abstract class AbstractImageList<T> extends JPanel implements MouseListen
     }
 
     protected void fireImageRemoved(T img) {
+        if (batchDepth > 0) {
+            return;
+        }
         repaint();
         for (ImageListListener<T> l : ills) {
             l.imageRemoved(img);
@@ -1379,11 +2286,122 @@ public abstract class AbstractImageList<T> extends JPanel implements MouseListen
     }
 
     protected void fireImageReplaced(T Old, T New, int pos) {
+        if (batchDepth > 0) {
+            return;
+        }
+        repaint();
         for (ImageListListener<T> l : ills) {
             l.imageReplaced(Old, New, pos);
         }
     }
 
+    protected void fireImageInserted(T img, int pos) {
+        if (batchDepth > 0) {
+            return;
+        }
+        repaint();
+        for (ImageListListener<T> l : ills) {
+            notifyImageInserted(l, img, pos);
+        }
+    }
+
+    protected void fireImagesReordered(int[] order) {
+        repaint();
+        for (ImageListListener<T> l : ills) {
+            notifyImagesReordered(l, order);
+        }
+    }
+
+    protected void fireImagesAdded(List<T> elements, int from) {
+        repaint();
+        for (ImageListListener<T> l : ills) {
+            notifyImagesAdded(l, elements, from);
+        }
+    }
+
+    protected void fireImagesRemoved(List<T> elements, int from) {
+        repaint();
+        for (ImageListListener<T> l : ills) {
+            notifyImagesRemoved(l, elements, from);
+        }
+    }
+
+    protected void fireImagesReplaced(List<T> oldElements, List<T> newElements, int from) {
+        repaint();
+        for (ImageListListener<T> l : ills) {
+            notifyImagesReplaced(l, oldElements, newElements, from);
+        }
+    }
+
+    /**
+     * Notifies a listener about an insertion, a plain ImageListListener receives imageAdded().
+     * @see ImageListBatchListener
+     */
+    @SuppressWarnings("unchecked")
+    static <L> void notifyImageInserted(ImageListListener<L> l, L element, int pos) {
+        if (l instanceof ImageListBatchListener) {
+            ((ImageListBatchListener<L>) l).imageInserted(element, pos);
+        } else {
+            l.imageAdded(element);
+        }
+    }
+
+    /**
+     * Notifies a listener about a reordering, a plain ImageListListener isn't notified.
+     * @see ImageListBatchListener
+     */
+    @SuppressWarnings("unchecked")
+    static <L> void notifyImagesReordered(ImageListListener<L> l, int[] order) {
+        if (l instanceof ImageListBatchListener) {
+            ((ImageListBatchListener<L>) l).imagesReordered(order);
+        }
+    }
+
+    /**
+     * Notifies a listener about added elements, a plain ImageListListener receives one imageAdded() per element.
+     * @see ImageListBatchListener
+     */
+    @SuppressWarnings("unchecked")
+    static <L> void notifyImagesAdded(ImageListListener<L> l, List<L> elements, int from) {
+        if (l instanceof ImageListBatchListener) {
+            ((ImageListBatchListener<L>) l).imagesAdded(elements, from);
+        } else {
+            for (L e : elements) {
+                l.imageAdded(e);
+            }
+        }
+    }
+
+    /**
+     * Notifies a listener about removed elements, a plain ImageListListener receives one imageRemoved() per element.
+     * @see ImageListBatchListener
+     */
+    @SuppressWarnings("unchecked")
+    static <L> void notifyImagesRemoved(ImageListListener<L> l, List<L> elements, int from) {
+        if (l instanceof ImageListBatchListener) {
+            ((ImageListBatchListener<L>) l).imagesRemoved(elements, from);
+        } else {
+            for (L e : elements) {
+                l.imageRemoved(e);
+            }
+        }
+    }
+
+    /**
+     * Notifies a listener about replaced elements, a plain ImageListListener receives one imageReplaced() per element.
+     * @see ImageListBatchListener
+     */
+    @SuppressWarnings("unchecked")
+    static <L> void notifyImagesReplaced(ImageListListener<L> l, List<L> oldElements, List<L> newElements, int from) {
+        if (l instanceof ImageListBatchListener) {
+            ((ImageListBatchListener<L>) l).imagesReplaced(oldElements, newElements, from);
+        } else {
+            for (int i = 0; i < oldElements.size(); i++) {
+                l.imageReplaced(oldElements.get(i), newElements.get(i), from + i);
+            }
+        }
+    }
+
     /**
      * Returns the relative image position on x-axis
      * @param index image index
@@ -1394,6 +2412,10 @@ public abstract class AbstractImageList<T> extends JPanel implements MouseListen
             throw new IllegalArgumentException("Ungültiger index angegeben! (" + index + ") (Size: " + images.size() + ")");
         }
 
+        return tileX(index);
+    }
+
+    private int tileX(int index) {
         Alignment a = align == null ? Alignment.Horizontal : align;
 
         return a == Alignment.Horizontal ? (index * ((fotoWidth) + spaceBetweenPics) + spaceBetweenPics + position) : margin[0];
@@ -1409,11 +2431,70 @@ public abstract class AbstractImageList<T> extends JPanel implements MouseListen
             throw new IllegalArgumentException("Ungültiger index angegeben! (" + index + ") (Size: " + images.size() + ")");
         }
 
+        return tileY(index);
+    }
+
+    private int tileY(int index) {
         Alignment a = align == null ? Alignment.Horizontal : align;
 
         return a == Alignment.Vertical ? (index * ((fotoHeigth) + spaceBetweenPics) + spaceBetweenPics + position) : margin[2];
     }
 
+    /**
+     * Returns whether the image with the specified index is (partly) inside the visible area of the component.
+     * @param index image index
+     * @return true if the image is visible
+     */
+    protected boolean isImageVisible(int index) {
+        if (align == Alignment.Vertical) {
+            return !(tileY(index) + fotoHeigth < 0 || tileY(index) > getHeight());
+        } else {
+            return !(tileX(index) + fotoWidth < 0 || tileX(index) > getWidth());
+        }
+    }
+
+    /**
+     * Returns the index of the first image which is (partly) visible.<br/>
+     * The index is calculated directly from the scroll position, so it doesn't depend on the number of images.
+     * @return index of the first visible image, if no image is visible the result is greater than getLastVisibleIndex()
+     * @see #getLastVisibleIndex()
+     */
+    protected int getFirstVisibleIndex() {
+        int step = (align == Alignment.Vertical ? fotoHeigth : fotoWidth) + spaceBetweenPics;
+        if (step <= 0) {
+            return 0;
+        }
+
+        int size = align == Alignment.Vertical ? fotoHeigth : fotoWidth;
+        // erstes i mit i*step + spaceBetweenPics + position + size >= 0
+        int first = -floorDiv(size + spaceBetweenPics + position, step);
+        return Math.max(0, first);
+    }
+
+    /**
+     * Returns the index of the last image which is (partly) visible.<br/>
+     * The index is calculated directly from the scroll position, so it doesn't depend on the number of images.
+     * @return index of the last visible image, -1 if there are no images
+     * @see #getFirstVisibleIndex()
+     */
+    protected int getLastVisibleIndex() {
+        int step = (align == Alignment.Vertical ? fotoHeigth : fotoWidth) + spaceBetweenPics;
+        int count = getState().count();
+        if (step <= 0) {
+            return count - 1;
+        }
+
+        int length = align == Alignment.Vertical ? getHeight() : getWidth();
+        // letztes i mit i*step + spaceBetweenPics + position <= length
+        int last = floorDiv(length - spaceBetweenPics - position, step);
+        return Math.min(count - 1, last);
+    }
+
+    private static int floorDiv(int a, int b) {
+        int q = a / b;
+        return (a % b != 0 && (a < 0) != (b < 0)) ? q - 1 : q;
+    }
+
     @Override
     public void componentResized(ComponentEvent e) {
         Alignment old = align;
@@ -1445,7 +2526,8 @@ public abstract class AbstractImageList<T> extends JPanel implements MouseListen
     }
 
     /**
-     * Centers an image in the center of the component
+     * Centers an image in the center of the component.<br/>
+     * A running scroll animation is replaced.
      * @param index image index
      * @param speed speed of the animation <b>1-99</b>
      */
@@ -1455,45 +2537,8 @@ public abstract class AbstractImageList<T> extends JPanel implements MouseListen
             final int smallestCenter = (align == null || align == Alignment.Horizontal ? getWidth() : getHeight()) / 2 - (align == null || align == Alignment.Horizontal ? fotoWidth : fotoHeigth) / 2 - spaceBetweenPics;
             final int newPosition = smallestCenter - index * ((align == null || align == Alignment.Horizontal ? fotoWidth : fotoHeigth) + spaceBetweenPics);
 
-            final int direction = newPosition > position ? 1 : (newPosition == position ? 0 : -1);
-
             centeringImage = index;
-
-
-            new Thread() {
-
-                @Override
-                public void run() {
-                    while (centeringImage == index && direction != 0 && ((direction == 1 && position < newPosition) || (direction == -1 && newPosition < position))) {
-                        int strecke = direction == 1 ? newPosition - position : position - newPosition;
-                        long time = 2;
-                        position += direction * ((strecke / (100 - speed)) + 1);
-                        oldpos = position;
-                        try {
-                            sleep(10);
-                        } catch (Exception e) {
-                        }
-
-                        //if (strecke < fotoWidth / 2) {
-//                            int x = MouseInfo.getPointerInfo().getLocation().x;
-//                            int y = MouseInfo.getPointerInfo().getLocation().y;
-//                            mouseMoved(new MouseEvent(AbstractImageList.this, index, time, position, x, y, direction, false));
-//
-//                        }
-                        repaint();
-                    }
-
-                    //position = newPosition;
-
-                    repaint();
-
-                    for (ImageListPropertyListener ilpl : ilpls) {
-                        ilpl.centeringEnd(index);
-                    }
-
-                    centeringImage = -1;
-                }
-            }.start();
+            animator.start(scrollChannel, new CenterAnimation(index, newPosition, speed));
 
             for (ImageListPropertyListener ilpl : ilpls) {
                 ilpl.centeringStart(index);
@@ -1502,173 +2547,368 @@ public abstract class AbstractImageList<T> extends JPanel implements MouseListen
         }
     }
 
-    private class Swapping {
+    /**
+     * Scrolls to a position, the speed decreases with the distance.
+     */
+    private class CenterAnimation implements Animator.Animation {
+
+        private final int index;
+        private final int newPosition;
+        private final int speed;
+        private final int direction;
 
-        public final int pos1;
-        public final int pos2;
+        CenterAnimation(int index, int newPosition, int speed) {
+            this.index = index;
+            this.newPosition = newPosition;
+            this.speed = speed;
+            direction = newPosition > position ? 1 : (newPosition == position ? 0 : -1);
+        }
 
-        public Swapping(int p1, int p2) {
-            pos1 = p1;
-            pos2 = p2;
+        private boolean moving() {
+            return centeringImage == index && direction != 0 && ((direction == 1 && position < newPosition) || (direction == -1 && newPosition < position));
         }
 
         @Override
-        public boolean equals(Object obj) {
-            return obj != null && pos1 == ((Swapping) obj).pos1 && ((Swapping) obj).pos2 == pos2;
+        public boolean step() {
+            // ein Schritt alle 10ms
+            int steps = Math.max(1, animator.getFrameInterval() / 10);
+            for (int i = 0; i < steps && moving(); i++) {
+                int strecke = direction == 1 ? newPosition - position : position - newPosition;
+                position += direction * ((strecke / (100 - speed)) + 1);
+                oldpos = position;
+            }
+
+            repaint();
+            return moving();
         }
 
         @Override
-        public int hashCode() {
-            int stellen = 1;
-            int p = this.pos1;
-            while (p > 1) {
-                stellen *= 10;
-                p /= 10;
+        public void end(boolean cancelled) {
+            repaint();
+
+            for (ImageListPropertyListener ilpl : ilpls) {
+                ilpl.centeringEnd(index);
             }
 
-            return pos1 * stellen + pos2;
+            if (centeringImage == index) {
+                centeringImage = -1;
+            }
         }
     }
-    private ArrayList<Swapping> swaps = new ArrayList<Swapping>(20);
 
     /**
-     * Swaps 2 images
+     * Swaps 2 images.<br/>
+     * Animated swaps are executed one after another, the images change their indexes when the animation is finished.
      * @param pos1 first image
      * @param pos2 second image
      * @param animated animated swap
      * @param speed speed of the animation 1-99
-     * @return Thread, which handles the animation.<br>returns null if the images can't swap.
+     * @return true if the images are swapped, false if they can't swap.
      */
-    public synchronized Thread swap(final int pos1, final int pos2, final boolean animated, final int speed) {
-        if (!(pos1 >= 0 && pos1 < images.size() && pos2 >= 0 && pos2 < images.size())) {
-            return null;
+    public synchronized boolean swap(final int pos1, final int pos2, final boolean animated, final int speed) {
+        if (!(pos1 >= 0 && pos1 < images.size() && pos2 >= 0 && pos2 < images.size() && pos1 != pos2 && speed > 0 && speed < 100)) {
+            return false;
         }
 
-        final Swapping sw = new Swapping(pos1, pos2);
-        swaps.add(sw);
-        final boolean[] success = new boolean[]{true};
+        if (animated) {
+            animator.append(swapChannel, new SwapAnimation(pos1, pos2, speed));
+        } else {
+            exchange(pos1, pos2);
+        }
 
-        Thread th = new Thread() {
+        repaint();
+        return true;
+    }
 
-            @Override
-            public void run() {
-                if (!swap(pos1, pos2, animated, speed, sw)) {
-                    swaps.remove(sw);
-                    success[0] = false;
-                }
-            }
-        };
-        th.start();
-        return success[0] ? th : null;
+    /**
+     * Reorders all images at once: the image at index <i>order[i]</i> is moved to index <i>i</i>.<br/>
+     * The images and titles are rearranged in one pass, the selection and the hovered image follow their images.
+     * Running swap animations are finished first. The listeners receive one imagesReordered() event and the list is repainted once.
+     * @param order new order, a permutation of the indexes 0 to count()-1
+     * @see ImageListBatchListener#imagesReordered(int[])
+     */
+    protected synchronized void reorder(int[] order) {
+        reorder(order, false, 50);
     }
 
-    private synchronized boolean swap(final int pos1, final int pos2, final boolean animated, final int speed, final Swapping sw) {
+    /**
+     * Reorders all images at once: the image at index <i>order[i]</i> is moved to index <i>i</i>.<br/>
+     * If animated, all images which change their position move concurrently from their old to their new position
+     * in one animation, then the lists are rearranged. The animation is appended to the swap animations.
+     * If the number of images changes during the animation, the animations are finished immediately and the images aren't reordered.
+     * @param order new order, a permutation of the indexes 0 to count()-1
+     * @param animated animated reordering
+     * @param speed speed of the animation 1-99
+     * @see #reorder(int[])
+     */
+    protected synchronized void reorder(int[] order, boolean animated, int speed) {
+        int[] newIndex = checkOrder(order);
 
-        if (pos1 >= 0 && pos1 < images.size() && pos2 >= 0 && pos2 < images.size() && pos1 != pos2 && speed > 0 && speed < 100) {
+        if (animated && speed > 0 && speed < 100) {
+            animator.append(swapChannel, new ReorderAnimation(order, newIndex, speed));
+            return;
+        }
 
-            if (animated) {
+        // Tauschanimationen beenden, sie beziehen sich auf die alten Positionen
+        finishSwaps();
+        applyOrder(order, newIndex);
+    }
 
-                while (swaps.get(0) != (sw)) {
-                    try {
-                        wait(5);
-                    } catch (InterruptedException ex) {
-                        System.out.println("Error beim wait(5);");
-                    }
-                }
+    /**
+     * Finishes the running and appended swap and reorder animations immediately.
+     */
+    protected void finishSwaps() {
+        animator.cancel(swapChannel);
+    }
 
-                swapPositions[0][0] = pos1;
-                swapPositions[1][0] = pos2;
+    /**
+     * Checks the permutation.
+     * @return new index of every old index
+     */
+    private int[] checkOrder(int[] order) {
+        if (order == null || order.length != images.size()) {
+            throw new IllegalArgumentException("Ungültige Reihenfolge übergeben! (Size: " + images.size() + ")");
+        }
 
+        int[] newIndex = new int[order.length];
+        Arrays.fill(newIndex, -1);
+        for (int i = 0; i < order.length; i++) {
+            if (order[i] < 0 || order[i] >= order.length || newIndex[order[i]] != -1) {
+                throw new IllegalArgumentException("Ungültige Reihenfolge übergeben! Index " + order[i] + " an Position " + i);
+            }
+            newIndex[order[i]] = i;
+        }
+        return newIndex;
+    }
 
-//                final int newPositionOf1 = spaceBetweenPics + position + pos2 * ((align == null || align == Alignment.Horizontal ? fotoWidth : fotoHeigth) + spaceBetweenPics);
-//                final int newPositionOf2 = spaceBetweenPics + position + pos1 * ((align == null || align == Alignment.Horizontal ? fotoWidth : fotoHeigth) + spaceBetweenPics);
-                Rectangle pos1Rect = ScaleImage.fitToRect(new Rectangle(getImageXPosition(pos1), getImageYPosition(pos1), fotoWidth, fotoHeigth), (BufferedImage) images.get(pos1));
-                Rectangle pos2Rect = ScaleImage.fitToRect(new Rectangle(getImageXPosition(pos2), getImageYPosition(pos2), fotoWidth, fotoHeigth), (BufferedImage) images.get(pos2));
+    private void applyOrder(int[] order, int[] newIndex) {
+        permute(order);
 
-                final int newPositionOf1 = align == Alignment.Vertical ? pos2Rect.y : pos2Rect.x;
-                final int newPositionOf2 = align == Alignment.Vertical ? pos1Rect.y : pos1Rect.x;
+        if (selectedImageIndex >= 0 && selectedImageIndex < newIndex.length) {
+            selectedImageIndex = newIndex[selectedImageIndex];
+        }
+        if (mouseOverPicNumber >= 0 && mouseOverPicNumber < newIndex.length) {
+            mouseOverPicNumber = newIndex[mouseOverPicNumber];
+        }
+        centeringImage = -1;
 
-                final int direction1 = newPositionOf2 < newPositionOf1 ? 1 : -1;
+        fireImagesReordered(order);
+    }
 
+    /**
+     * Rearranges the items with all their columns in one pass: the item at index <i>order[i]</i> is moved to index <i>i</i>.<br/>
+     * Subclasses can override it to update their data structures.
+     * @param order valid permutation
+     */
+    protected void permute(int[] order) {
+        items.permute(order);
+    }
 
-                final Thread t1 = new Thread() {
+    /**
+     * Moves all images of a reordering concurrently from their old to their new position, then applies the new order.<br/>
+     * Every image which isn't at its final position is part of a cycle of the permutation and moves directly
+     * to its new position, so each image moves only once instead of being swapped repeatedly.
+     */
+    private class ReorderAnimation implements Animator.Animation {
 
-                    int oldPositionOf1 = spaceBetweenPics + position + pos1 * ((align == null || align == Alignment.Horizontal ? fotoWidth : fotoHeigth) + spaceBetweenPics);
-                    int oldPositionOf2 = spaceBetweenPics + position + pos2 * ((align == null || align == Alignment.Horizontal ? fotoWidth : fotoHeigth) + spaceBetweenPics);
+        private final int[] order;
+        private final int[] newIndex;
+        private final long duration;
+        private long start = 0;
+        private boolean ended = false;
 
-                    @Override
-                    public void run() {
-                        int distance1 = Math.abs(newPositionOf1 - oldPositionOf1);
-                        int distance2 = Math.abs(newPositionOf2 - oldPositionOf2);
+        ReorderAnimation(int[] order, int[] newIndex, int speed) {
+            this.order = order;
+            this.newIndex = newIndex;
+            // Geschwindigkeit 50 => 1 Sekunde
+            this.duration = 1500 - 10 * speed;
+        }
 
-                        while ((direction1 == 1 && newPositionOf1 > oldPositionOf1 || direction1 == -1 && oldPositionOf1 > newPositionOf1)
-                                || (direction1 == -1 && newPositionOf2 > oldPositionOf2 || direction1 == 1 && oldPositionOf2 > newPositionOf2)) {
+        @Override
+        public boolean step() {
+            long now = System.currentTimeMillis();
+            synchronized (AbstractImageList.this) {
+                // kann zwischen zwei Frames abgebrochen worden sein
+                if (ended) {
+                    return false;
+                }
+                if (start == 0) {
+                    if (order.length != images.size()) {
+                        return false;
+                    }
+                    start = now;
+                    reorderProgress = 0;
+                    reorderMoves = newIndex;
+                }
+            }
 
+            double t = Math.min(1, (now - start) / (double) duration);
+            // weich anfahren und abbremsen
+            reorderProgress = t * t * (3 - 2 * t);
+            repaint();
+            return t < 1;
+        }
 
-                            distance1 = Math.abs(newPositionOf1 - oldPositionOf1);
-                            distance2 = Math.abs(newPositionOf2 - oldPositionOf2);
+        @Override
+        public void end(boolean cancelled) {
+            synchronized (AbstractImageList.this) {
+                ended = true;
+                reorderMoves = null;
+                // auch abgebrochene Umsortierungen werden durchgeführt
+                if (order.length == images.size()) {
+                    applyOrder(order, newIndex);
+                }
+            }
+            repaint();
+        }
+    }
 
+    /**
+     * Draws the images which are moved by a reorder animation at their current position.
+     */
+    private void paintReorderedTiles(Graphics g, State state, Rectangle clip, Alignment align) {
+        int[] moves = reorderMoves;
+        if (moves == null) {
+            return;
+        }
 
-                            oldPositionOf1 += direction1 * ((distance1 / (100 - speed)) + 1);
-                            oldPositionOf2 -= direction1 * ((distance2 / (100 - speed)) + 1);
+        double progress = reorderProgress;
+        int n = Math.min(moves.length, state.count());
+        for (int i = 0; i < n; i++) {
+            if (moves[i] == i) {
+                continue;
+            }
 
+            int x = tileX(i);
+            int y = tileY(i);
+            x += (int) Math.round((tileX(moves[i]) - x) * progress);
+            y += (int) Math.round((tileY(moves[i]) - y) * progress);
 
-                            if ((direction1 == 1 && newPositionOf1 > oldPositionOf1 || direction1 == -1 && oldPositionOf1 > newPositionOf1)) {
-                                swapPositions[0][1] = (oldPositionOf1);
-                            }
+            paintTileRect.setBounds(x - 1, y - 1, fotoWidth + 3, fotoHeigth + 3);
+            if (clip.intersects(paintTileRect)) {
+                paintTile(g, state, i, x, y, align);
+            }
+        }
+    }
 
-                            if ((direction1 == -1 && newPositionOf2 > oldPositionOf2 || direction1 == 1 && oldPositionOf2 > newPositionOf2)) {
-                                swapPositions[1][1] = (oldPositionOf2);
-                            }
+    /**
+     * Exchanges the items of 2 indexes with all their columns.<br/>
+     * Is called when a swap is executed, subclasses can override it to update their data structures.
+     * @param pos1 first index
+     * @param pos2 second index
+     */
+    protected void exchange(int pos1, int pos2) {
+        items.swap(pos1, pos2);
+    }
 
-                            repaint();
-                            try {
-                                sleep(5);
-                            } catch (Exception e) {
-                                System.out.println("Error beim Swap von: " + pos1 + " und " + pos2);
-                            }
-                        }
+    /**
+     * Moves 2 images to the positions of each other, then exchanges them.
+     */
+    private class SwapAnimation implements Animator.Animation {
 
-                        Image i = images.get(pos2);
-                        images.set(pos2, images.get(pos1));
-                        images.set(pos1, i);
+        private final int pos1;
+        private final int pos2;
+        private final int speed;
+        private boolean started = false;
+        private int newPositionOf1;
+        private int newPositionOf2;
+        private int direction1;
+        private int oldPositionOf1;
+        private int oldPositionOf2;
 
-                        String s = titles.get(pos2);
-                        titles.set(pos2, titles.get(pos1));
-                        titles.set(pos1, s);
+        SwapAnimation(int pos1, int pos2, int speed) {
+            this.pos1 = pos1;
+            this.pos2 = pos2;
+            this.speed = speed;
+        }
 
-                        swapPositions[0][0] = -1;
-                        swapPositions[1][0] = -1;
-                        repaint();
-                        swaps.remove(0);
+        /**
+         * The positions are taken when the animation starts, the swaps before can have changed them.
+         */
+        private void start() {
+            started = true;
+            swapPositions[0][0] = pos1;
+            swapPositions[1][0] = pos2;
 
-                    }
-                };
+            Rectangle pos1Rect = getFittedImageRect(pos1);
+            Rectangle pos2Rect = getFittedImageRect(pos2);
 
-                t1.start();
+            newPositionOf1 = align == Alignment.Vertical ? pos2Rect.y : pos2Rect.x;
+            newPositionOf2 = align == Alignment.Vertical ? pos1Rect.y : pos1Rect.x;
+            direction1 = newPositionOf2 < newPositionOf1 ? 1 : -1;
 
+            int tileSize = (align == null || align == Alignment.Horizontal ? fotoWidth : fotoHeigth) + spaceBetweenPics;
+            oldPositionOf1 = spaceBetweenPics + position + pos1 * tileSize;
+            oldPositionOf2 = spaceBetweenPics + position + pos2 * tileSize;
+        }
 
-            } else {
-                Image i = images.get(pos2);
-                images.set(pos2, images.get(pos1));
-                images.set(pos1, i);
+        private boolean moving1() {
+            return direction1 == 1 && newPositionOf1 > oldPositionOf1 || direction1 == -1 && oldPositionOf1 > newPositionOf1;
+        }
+
+        private boolean moving2() {
+            return direction1 == -1 && newPositionOf2 > oldPositionOf2 || direction1 == 1 && oldPositionOf2 > newPositionOf2;
+        }
 
-                String s = titles.get(pos2);
-                titles.set(pos2, titles.get(pos1));
-                titles.set(pos1, s);
+        @Override
+        public boolean step() {
+            if (!started) {
+                if (pos1 >= images.size() || pos2 >= images.size()) {
+                    return false;
+                }
+                start();
             }
 
+            // ein Schritt alle 5ms
+            int steps = Math.max(1, animator.getFrameInterval() / 5);
+            for (int i = 0; i < steps && (moving1() || moving2()); i++) {
+                int distance1 = Math.abs(newPositionOf1 - oldPositionOf1);
+                int distance2 = Math.abs(newPositionOf2 - oldPositionOf2);
+
+                oldPositionOf1 += direction1 * ((distance1 / (100 - speed)) + 1);
+                oldPositionOf2 -= direction1 * ((distance2 / (100 - speed)) + 1);
+
+                if (moving1()) {
+                    swapPositions[0][1] = oldPositionOf1;
+                }
+                if (moving2()) {
+                    swapPositions[1][1] = oldPositionOf2;
+                }
+            }
 
-            notifyAll();
             repaint();
-            return true;
+            return moving1() || moving2();
         }
 
-
-        return false;
+        @Override
+        public void end(boolean cancelled) {
+            synchronized (AbstractImageList.this) {
+                // auch abgebrochene Vertauschungen werden durchgeführt, die Zeilen werden mit allen Spalten vertauscht
+                if (pos1 < images.size() && pos2 < images.size()) {
+                    exchange(pos1, pos2);
+                }
+                swapPositions[0][0] = -1;
+                swapPositions[1][0] = -1;
+            }
+            repaint();
+        }
     }
+
     private int[][] swapPositions = new int[][]{{-1, 0}, {-1, 0}};
 
+    /**
+     * Returns the bounds of the image fitted into its tile, or the tile bounds if the image isn't available.
+     */
+    private Rectangle getFittedImageRect(int index) {
+        Rectangle r = new Rectangle(getImageXPosition(index), getImageYPosition(index), fotoWidth, fotoHeigth);
+        State state = getState();
+        Image img = index < state.count() ? getTile(state, index) : null;
+        if (img != null && img.getWidth(null) > 0 && img.getHeight(null) > 0) {
+            ScaleImage.fitToRect(r.x, r.y, r.width, r.height, img.getWidth(null), img.getHeight(null), r);
+        }
+        return r;
+    }
+
     /**
      * Vertical position of the image titles
      */
@@ -1775,24 +3015,6 @@ public abstract class AbstractImageList<T> extends JPanel implements MouseListen
         
     }
 
-    private Image doubleImg = null;
-    private Graphics doubleBuff = null;
-    @Override
-    public void update(Graphics g) {
-
-        if(doubleImg == null){
-            doubleImg = createImage(this.getWidth(), this.getHeight());
-            doubleBuff = doubleImg.getGraphics();
-        }
-
-        doubleBuff.setColor (getBackground ());
-        doubleBuff.fillRect (0, 0, this.getWidth(), this.getHeight());
-
-        paint(doubleBuff);
-
-        g.drawImage (doubleImg, 0, 0, this);
-    }
-
 
 
 
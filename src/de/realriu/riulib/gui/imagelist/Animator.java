@@ -0,0 +1,331 @@
+package de.realriu.riulib.gui.imagelist;
+
+import java.awt.Toolkit;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import javax.swing.Timer;
+
+/**
+ * Drives animations with a fixed frame rate from a single Swing timer, the animations are therefore executed on the event dispatch thread.<br/>
+ * <br/>
+ * Every animation runs on a channel (any object, e.g. one per list and kind of animation). A channel runs only one animation at a time:
+ * {@link #start(java.lang.Object, de.realriu.riulib.gui.imagelist.Animator.Animation)} replaces the running animation of the channel,
+ * {@link #append(java.lang.Object, de.realriu.riulib.gui.imagelist.Animator.Animation)} starts the animation after the ones before.
+ * In every frame the channels are stepped in the order in which they were started.<br/>
+ * The timer only runs while there are animations.<br/>
+ * <br/>
+ * All lists use the shared animator by default, so all animations of an application are stepped in the same frame.
+ * @author riu
+ * @version 1.0
+ * @see AbstractImageList#setAnimator(de.realriu.riulib.gui.imagelist.Animator)
+ */
+public class Animator {
+
+    /**
+     * An animation, step() is called on the event dispatch thread.
+     */
+    public static interface Animation {
+
+        /**
+         * Computes the next frame.
+         * @return false if the animation is finished
+         */
+        public boolean step();
+
+        /**
+         * Is called once when the animation is finished or was cancelled/replaced.<br/>
+         * If it was cancelled, it is called by the thread which cancelled it.
+         * @param cancelled true if the animation didn't finish
+         */
+        public void end(boolean cancelled);
+    }
+
+    /**
+     * Default frame rate
+     */
+    public static final int DEFAULT_FPS = 50;
+
+    private static Animator shared = null;
+
+    /**
+     * channel => running animation and the appended ones
+     */
+    private final LinkedHashMap<Object, LinkedList<Animation>> channels = new LinkedHashMap<Object, LinkedList<Animation>>();
+    private final Timer timer;
+    private final int frameInterval;
+    private long frames = 0;
+    private long frameTimeSum = 0;
+    private long maxFrameTime = 0;
+    private long intervalSum = 0;
+    private long intervals = 0;
+    private long maxInterval = 0;
+    private long lastFrame = 0;
+
+    /**
+     * Creates a new animator
+     * @param fps frames per second
+     */
+    public Animator(int fps) {
+        if (fps <= 0 || fps > 1000) {
+            throw new IllegalArgumentException("Ungültige Framerate: " + fps);
+        }
+
+        frameInterval = 1000 / fps;
+        timer = new Timer(frameInterval, new ActionListener() {
+
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                frame();
+            }
+        });
+        timer.setCoalesce(true);
+    }
+
+    /**
+     * Returns the animator which is shared by all lists, it runs with {@link #DEFAULT_FPS} frames per second.
+     * @return shared animator
+     */
+    public static synchronized Animator getShared() {
+        if (shared == null) {
+            shared = new Animator(DEFAULT_FPS);
+        }
+        return shared;
+    }
+
+    /**
+     * Starts an animation on the channel. The running and the appended animations of the channel are cancelled.
+     * @param channel channel
+     * @param a animation
+     */
+    public void start(Object channel, Animation a) {
+        List<Animation> cancelled = null;
+        synchronized (this) {
+            LinkedList<Animation> queue = channels.remove(channel);
+            if (queue != null) {
+                cancelled = queue;
+            }
+            queue = new LinkedList<Animation>();
+            queue.add(a);
+            channels.put(channel, queue);
+            startTimer();
+        }
+        end(cancelled);
+    }
+
+    /**
+     * Appends an animation to the channel, it starts when the animations before are finished.
+     * @param channel channel
+     * @param a animation
+     */
+    public synchronized void append(Object channel, Animation a) {
+        LinkedList<Animation> queue = channels.get(channel);
+        if (queue == null) {
+            queue = new LinkedList<Animation>();
+            channels.put(channel, queue);
+        }
+        queue.add(a);
+        startTimer();
+    }
+
+    /**
+     * Cancels the running and the appended animations of the channel.
+     * @param channel channel
+     */
+    public void cancel(Object channel) {
+        List<Animation> cancelled;
+        synchronized (this) {
+            cancelled = channels.remove(channel);
+        }
+        end(cancelled);
+    }
+
+    /**
+     * Returns the running animation of the channel.
+     * @param channel channel
+     * @return animation or <b>null</b>
+     */
+    public synchronized Animation getAnimation(Object channel) {
+        LinkedList<Animation> queue = channels.get(channel);
+        return queue == null ? null : queue.getFirst();
+    }
+
+    /**
+     * Returns whether an animation is running or appended on the channel.
+     * @param channel channel
+     * @return true if the channel is animated
+     */
+    public synchronized boolean isRunning(Object channel) {
+        return channels.containsKey(channel);
+    }
+
+    private void startTimer() {
+        if (!timer.isRunning()) {
+            lastFrame = 0;
+            timer.start();
+        }
+    }
+
+    private void end(List<Animation> cancelled) {
+        if (cancelled != null) {
+            for (Animation a : cancelled) {
+                a.end(true);
+            }
+        }
+    }
+
+    /**
+     * Steps the running animation of every channel.
+     */
+    private void frame() {
+        long start = System.nanoTime();
+        List<Object> keys;
+        List<Animation> running;
+        synchronized (this) {
+            if (channels.isEmpty()) {
+                timer.stop();
+                return;
+            }
+
+            keys = new ArrayList<Object>(channels.keySet());
+            running = new ArrayList<Animation>(keys.size());
+            for (LinkedList<Animation> queue : channels.values()) {
+                running.add(queue.getFirst());
+            }
+        }
+
+        for (int i = 0; i < keys.size(); i++) {
+            Object channel = keys.get(i);
+            Animation a = running.get(i);
+            synchronized (this) {
+                LinkedList<Animation> queue = channels.get(channel);
+                if (queue == null || queue.getFirst() != a) {
+                    // wurde in diesem Frame ersetzt oder abgebrochen
+                    continue;
+                }
+            }
+
+            boolean finished;
+            try {
+                finished = !a.step();
+            } catch (RuntimeException ex) {
+                // eine fehlerhafte Animation darf die anderen nicht blockieren
+                finished = true;
+            }
+
+            if (finished) {
+                boolean current;
+                synchronized (this) {
+                    LinkedList<Animation> queue = channels.get(channel);
+                    current = queue != null && queue.getFirst() == a;
+                    if (current) {
+                        queue.removeFirst();
+                        if (queue.isEmpty()) {
+                            channels.remove(channel);
+                        }
+                    }
+                }
+
+                // eine ersetzte Animation wurde bereits beendet
+                if (current) {
+                    a.end(false);
+                }
+            }
+        }
+
+        Toolkit.getDefaultToolkit().sync();
+
+        long end = System.nanoTime();
+        synchronized (this) {
+            long time = end - start;
+            frames++;
+            frameTimeSum += time;
+            maxFrameTime = Math.max(maxFrameTime, time);
+            if (lastFrame != 0) {
+                long interval = start - lastFrame;
+                intervalSum += interval;
+                intervals++;
+                maxInterval = Math.max(maxInterval, interval);
+            }
+            lastFrame = start;
+        }
+    }
+
+    /**
+     * Returns the time between two frames.
+     * @return interval in milliseconds
+     */
+    public int getFrameInterval() {
+        return frameInterval;
+    }
+
+    /**
+     * Returns the number of animations which are running or appended.
+     * @return number of animations
+     */
+    public synchronized int getAnimationCount() {
+        int count = 0;
+        Iterator<LinkedList<Animation>> it = channels.values().iterator();
+        while (it.hasNext()) {
+            count += it.next().size();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of frames since the last reset of the statistics.
+     * @return frames
+     */
+    public synchronized long getFrameCount() {
+        return frames;
+    }
+
+    /**
+     * Returns the average time which the animations needed per frame.
+     * @return time in nanoseconds
+     */
+    public synchronized long getAverageFrameTime() {
+        return frames == 0 ? 0 : frameTimeSum / frames;
+    }
+
+    /**
+     * Returns the longest time which the animations needed for a frame.
+     * @return time in nanoseconds
+     */
+    public synchronized long getMaxFrameTime() {
+        return maxFrameTime;
+    }
+
+    /**
+     * Returns the average measured time between two frames, it shows how exact the frame rate is kept.
+     * @return interval in nanoseconds
+     */
+    public synchronized long getAverageFrameInterval() {
+        return intervals == 0 ? 0 : intervalSum / intervals;
+    }
+
+    /**
+     * Returns the longest measured time between two frames.
+     * @return interval in nanoseconds
+     */
+    public synchronized long getMaxFrameInterval() {
+        return maxInterval;
+    }
+
+    /**
+     * Resets the frame statistics.
+     */
+    public synchronized void resetStatistics() {
+        frames = 0;
+        frameTimeSum = 0;
+        maxFrameTime = 0;
+        intervalSum = 0;
+        intervals = 0;
+        maxInterval = 0;
+        lastFrame = 0;
+    }
+}
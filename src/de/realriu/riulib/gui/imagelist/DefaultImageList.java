@@ -39,8 +39,7 @@ public class DefaultImageList extends AbstractImageList<Image> implements MouseL
      */
     @Override
     public synchronized void addImage(Image img, String title) {
-        images.add(img);
-        titles.add(title==null?"":title);
+        addItem(img, title);
         
         fireImageAdded(img);
     }
@@ -53,8 +52,8 @@ public class DefaultImageList extends AbstractImageList<Image> implements MouseL
      */
     @Override
     public synchronized Image removeImage(int pos) {
-        Image i = images.remove(pos);
-        titles.remove(pos);
+        Image i = images.get(pos);
+        removeItems(pos, pos + 1);
         
         fireImageRemoved(i);
         return i;
@@ -75,7 +74,6 @@ public class DefaultImageList extends AbstractImageList<Image> implements MouseL
         if(pos>=0 && pos<images.size()){
             Image old = images.set(pos, newImage);
 
-            repaint();
             fireImageReplaced(old, newImage, pos);
 
             return old;
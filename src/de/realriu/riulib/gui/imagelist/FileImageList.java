@@ -1,39 +1,188 @@
 
 package de.realriu.riulib.gui.imagelist;
 
+import java.awt.Dimension;
+import java.awt.Image;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.ComponentEvent;
 import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
 import java.awt.event.MouseWheelListener;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
 
 
 import javax.imageio.ImageIO;
+import javax.swing.Timer;
+import de.realriu.riulib.helpers.DecodeScheduler;
+import de.realriu.riulib.helpers.DirectoryWatcher;
+import de.realriu.riulib.helpers.ImageCache;
 import de.realriu.riulib.helpers.ScaleImage;
+import de.realriu.riulib.helpers.ThumbnailCache;
+import de.realriu.riulib.helpers.ThumbnailReader;
 
 
 /**
  * Imagelist that is working with the file references<br>
  * The image files are loaded and on the component size down scaled to use less Ram.<br>
- 
+ * If a file contains an embedded thumbnail (e.g. EXIF) which is big enough for the tiles, only the thumbnail is decoded.<br>
+ * In the lazy mode only the file references are kept, the tiles are decoded in the background when they become visible.<br>
  * @author riu
  * @version 1.1
  *
  * @see AbstractImageList
  * @see #refreshSize()
+ * @see #setUseEmbeddedThumbnails(boolean)
+ * @see #setThumbnailCache(de.realriu.riulib.helpers.ThumbnailCache)
+ * @see #setLazyLoading(boolean)
+ * @see #getDecodeScheduler()
  * @see #addImage(java.io.File, java.lang.String) 
+ * @see #addImageAsync(java.io.File, java.lang.String)
  * @see #removeImage(int) 
+ * @see #setIncrementalResize(boolean)
+ * @see #watchDirectory(java.nio.file.Path, java.nio.file.DirectoryStream.Filter)
+ * @see #addDirectory(java.nio.file.Path, java.nio.file.DirectoryStream.Filter, boolean)
  * @see #getSelectedImage()
  * @see #getImage(int) 
  */
 public class FileImageList extends AbstractImageList<File> implements MouseListener,
 		MouseMotionListener, MouseWheelListener {
 
-    protected List<File> files = new ArrayList<File>();
-    
+    /**
+     * Column of the files in the items
+     */
+    protected final int fileColumn = items.addColumn();
+    /**
+     * Files of the images, a column of the items
+     */
+    protected final ItemColumn<File> files = new ItemColumn<File>(fileColumn);
+
+    /**
+     * Tiles which were created from an embedded thumbnail, mapped to the size of that thumbnail.<br/>
+     * If a tile grows bigger than its thumbnail, the file is decoded completely.
+     */
+    protected final Map<Image, Dimension> thumbnailTiles = Collections.synchronizedMap(new WeakHashMap<Image, Dimension>());
+
+    /**
+     * Use the thumbnails embedded in the image files if they are big enough.<br/>
+     * Default: true
+     */
+    protected boolean useEmbeddedThumbnails = true;
+
+    /**
+     * Disk cache for the scaled tiles<br/>
+     * Default: null
+     */
+    protected ThumbnailCache thumbnailCache = null;
+
+    /**
+     * Only the files are kept, the tiles are decoded when they become visible and are kept in the tileCache.<br/>
+     * Default: false
+     */
+    protected boolean lazyLoading = false;
+
+    /**
+     * Decoded tiles of the lazy mode, bounded by the size of their pixel data<br/>
+     * Default: 64 MB
+     */
+    protected final ImageCache<File> tileCache = new ImageCache<File>(64L * 1024 * 1024);
+
+    /**
+     * Tiles of the lazy mode which are bigger than the whole tileCache, they are kept while they are visible
+     * or within the prefetch margin so they aren't decoded again on every paint
+     */
+    private final Map<File, Image> oversizedTiles = new ConcurrentHashMap<File, Image>();
+
+    /**
+     * Number of images before and after the visible ones which are decoded in advance<br/>
+     * Default: 10
+     */
+    protected int prefetchMargin = 10;
+
+    /**
+     * Orders the tile decodes by the visible range and scroll direction
+     */
+    private final DecodeScheduler<File> decodeScheduler;
+    /**
+     * Files which couldn't be decoded, they are not tried again
+     */
+    private final Set<File> unreadableFiles = Collections.newSetFromMap(new ConcurrentHashMap<File, Boolean>());
+    /**
+     * Is incremented if the tiles become invalid (clear, new size), decodes of older generations are dropped
+     */
+    private volatile int tileGeneration = 0;
+    /**
+     * Executor which decodes the tiles, paint() reads it without the lock
+     */
+    private volatile ExecutorService decodeExecutor;
+    /**
+     * Default executor of all lists, so lists which aren't used anymore don't keep their own thread
+     */
+    private static ExecutorService defaultDecodeExecutor = null;
+    /**
+     * Column of the asynchronous decodes which aren't finished yet, e.g. of addImageAsync().
+     * The decode belongs to the row and moves with it, paint() reads it from the snapshot.
+     */
+    private final int decodeColumn = items.addColumn();
+    private final ItemColumn<RowDecode> decodes = new ItemColumn<RowDecode>(decodeColumn);
+
+    /**
+     * Delay between the last resize of the component and the refresh of the tile size
+     */
+    private static final int RESIZE_DELAY = 250;
+    /**
+     * refreshSize() rescales the tiles in the background, the existing tiles are shown until then.<br/>
+     * Default: false
+     */
+    protected boolean incrementalResize = false;
+    /**
+     * Relative deviation from the target size up to which a tile isn't rescaled in the incremental mode<br/>
+     * Default: 0.1
+     */
+    protected double resizeTolerance = 0.1;
+    /**
+     * Tile size of the last incremental refresh, 0 if there was none
+     */
+    private int resizeWidth = 0;
+    private int resizeHeigth = 0;
+    /**
+     * Coalesces the resize events, refreshSize() is called once after the last one
+     */
+    private final Timer resizeTimer = new Timer(RESIZE_DELAY, new ActionListener() {
+
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            refreshSize();
+        }
+    });
 
 
     /**
@@ -43,8 +192,9 @@ public class FileImageList extends AbstractImageList<File> implements MouseListe
      */
     public FileImageList(Alignment a, boolean autoAlignment) {
         super(a, autoAlignment);
-        
-
+        resizeTimer.setRepeats(false);
+        decodeExecutor = getDefaultDecodeExecutor();
+        decodeScheduler = new DecodeScheduler<File>(decodeExecutor, Math.max(30, 3 * prefetchMargin));
     }
 
 
@@ -59,35 +209,261 @@ public class FileImageList extends AbstractImageList<File> implements MouseListe
     public synchronized void addImage(File f, String title) {
         if(f!=null && f.exists() && f.isFile()){
             try {
-                repaint();
-
-                if(fotoHeigth>0 && fotoWidth>0){
-                    BufferedImage img = ImageIO.read(f);
-                    ScaleImage.Rectangle preferedSize = ScaleImage.fitToRect(new ScaleImage.Rectangle(0, 0, fotoWidth, fotoHeigth), img);
-                    images.add(ScaleImage.scale(img, preferedSize.width, preferedSize.heigth));
+                Image tile = null;
+                if(!lazyLoading && fotoHeigth>0 && fotoWidth>0){
+                    tile = loadTile(f);
                 }
+                // sonst wird beim Zeichnen geladen
 
-                titles.add(title==null?"":title);
-                files.add(f);
+                int pos = addItem(tile, title);
+                files.set(pos, f);
 
                 fireImageAdded(f);
-                System.gc();
-                repaint();
-                
             } catch (IOException ex) {throw new RuntimeException(ex);}
         }
     }
 
     /**
-     * Removes the image file and the corresponding image from the list
+     * Adds a file without waiting for the image. A placeholder is shown immediately,
+     * the image is decoded and scaled by the decode executor and then replaces the placeholder (fires imageReplaced()).<br/>
+     * If the file can't be decoded it is removed from the list again (fires imageRemoved()).<br/>
+     * In the lazy mode nothing is decoded here, the tile is loaded when it becomes visible.
+     * @param f image file
+     * @param title title
+     * @return the pending decode, can be cancelled - <b>null</b> if nothing is decoded
+     * @see #setDecodeExecutor(java.util.concurrent.ExecutorService)
+     */
+    public Future<BufferedImage> addImageAsync(final File f, String title) {
+        if (f == null || !f.exists() || !f.isFile()) {
+            return null;
+        }
+
+        synchronized (this) {
+            int pos = addItem(null, title);
+            files.set(pos, f);
+            fireImageAdded(f);
+
+            if (lazyLoading || fotoWidth <= 0 || fotoHeigth <= 0) {
+                // wird beim Zeichnen geladen
+                return null;
+            }
+            return startDecode(pos, null);
+        }
+    }
+
+    /**
+     * Decode of the tile of one row, when it is ready it replaces the tile <i>expected</i> of the row.
+     */
+    private final class RowDecode extends FutureTask<BufferedImage> {
+
+        private final File file;
+        private final Image expected;
+        /**
+         * Position of the row when the decode was started, rows are only moved by removals in front of it in most cases
+         */
+        private final int row;
+
+        RowDecode(final File file, Image expected, int row, final int width, final int heigth) {
+            super(new Callable<BufferedImage>() {
+
+                @Override
+                public BufferedImage call() throws IOException {
+                    return loadTile(file, width, heigth);
+                }
+            });
+            this.file = file;
+            this.expected = expected;
+            this.row = row;
+        }
+
+        @Override
+        protected void done() {
+            decodeFinished(this);
+        }
+    }
+
+    /**
+     * Decodes the tile of the row on the decode executor, when it is ready it replaces the tile <i>expected</i>.
+     * A previous decode of the row is cancelled.
+     * @param expected current tile, <b>null</b> for a placeholder which is removed if the file can't be decoded
+     */
+    private Future<BufferedImage> startDecode(int pos, Image expected) {
+        RowDecode decode = new RowDecode(files.get(pos), expected, pos, fotoWidth, fotoHeigth);
+        RowDecode previous = decodes.set(pos, decode);
+        if (previous != null) {
+            previous.cancel(false);
+        }
+        getDecodeExecutor().execute(decode);
+        return decode;
+    }
+
+    /**
+     * Puts the result of an asynchronous decode into the list.
+     */
+    private synchronized void decodeFinished(RowDecode decode) {
+        if (decode.isCancelled()) {
+            // die Zeile wurde vorher ausgetragen
+            return;
+        }
+
+        int index = indexOfDecode(decode);
+        if (index < 0) {
+            return;
+        }
+        decodes.set(index, null);
+
+        try {
+            BufferedImage tile = decode.get();
+            Image old = images.get(index);
+            if (old == decode.expected) {
+                images.set(index, tile);
+                if (old != null) {
+                    thumbnailTiles.remove(old);
+                }
+                fireImageReplaced(decode.file, decode.file, index);
+            }
+        } catch (ExecutionException ex) {
+            if (decode.expected == null) {
+                removeImage(index);
+            }
+            // sonst bleibt die alte Kachel erhalten
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Decodes the file at the index again without blocking, e.g. because it was modified.
+     * The old tile stays visible until the new one is ready (fires imageReplaced()), if the file
+     * can't be decoded anymore the old tile is kept. In the lazy mode only the cached tile is dropped.
+     */
+    private void reloadImage(int pos) {
+        File f = files.get(pos);
+        unreadableFiles.remove(f);
+        if (lazyLoading) {
+            decodeScheduler.cancel(f);
+            tileCache.remove(f);
+            oversizedTiles.remove(f);
+            fireImageReplaced(f, f, pos);
+        } else if (fotoHeigth > 0 && fotoWidth > 0) {
+            decodeScheduler.cancel(f);
+            startDecode(pos, images.get(pos));
+        }
+    }
+
+    /**
+     * Returns the row of the decode, -1 if the row was removed.<br/>
+     * Starts at the position where the decode was started and searches towards the front first,
+     * because appending doesn't move the rows and removals only move them forward.
+     */
+    private int indexOfDecode(RowDecode decode) {
+        int n = decodes.size();
+        for (int i = Math.min(decode.row, n - 1); i >= 0; i--) {
+            if (decodes.get(i) == decode) {
+                return i;
+            }
+        }
+        for (int i = decode.row + 1; i < n; i++) {
+            if (decodes.get(i) == decode) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Cancels the asynchronous decode and the queued tile decode of the row, if there are any.
+     */
+    private void cancelDecode(int pos, File f) {
+        RowDecode decode = decodes.set(pos, null);
+        if (decode != null) {
+            decode.cancel(false);
+        }
+        decodeScheduler.cancel(f);
+    }
+
+    /**
+     * Cancels all asynchronous decodes.
+     */
+    private void cancelDecodes() {
+        for (int i = 0; i < decodes.size(); i++) {
+            RowDecode decode = decodes.get(i);
+            if (decode != null) {
+                // erst austragen, decodeFinished() ignoriert abgebrochene Decodes
+                decodes.set(i, null);
+                decode.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Sets the executor which decodes the images of addImageAsync() and the tiles of the lazy mode.<br/>
+     * The executor isn't shut down by the list. Pending decodes of the previous executor are not moved.<br/>
+     * Default: a single background thread with low priority, which is shared by all FileImageLists
+     * @param executor executor or <b>null</b> for the default executor
+     */
+    public synchronized void setDecodeExecutor(ExecutorService executor) {
+        if (executor == null) {
+            executor = getDefaultDecodeExecutor();
+        }
+        if (executor == decodeExecutor) {
+            return;
+        }
+
+        decodeExecutor = executor;
+        decodeScheduler.setExecutor(executor);
+    }
+
+    /**
+     * Returns the scheduler of the tile decodes. It loads the visible tiles first, then the tiles in scroll direction,
+     * and drops requests which scrolled out of its window (default: 3 * prefetch margin, at least 30 images).<br/>
+     * The scheduler also provides the statistics (queue depth, dropped requests).
+     * @return decode scheduler
+     */
+    public DecodeScheduler<File> getDecodeScheduler() {
+        return decodeScheduler;
+    }
+
+    /**
+     * Returns the executor which decodes the images.
+     * The default executor is shared by all lists and must not be shut down.
+     * @return executor
+     */
+    public ExecutorService getDecodeExecutor() {
+        return decodeExecutor;
+    }
+
+    /**
+     * Returns the default executor of all lists, a single background thread with low priority.
+     * The thread is only started with the first decode.
+     */
+    private static synchronized ExecutorService getDefaultDecodeExecutor() {
+        if (defaultDecodeExecutor == null) {
+            defaultDecodeExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "FileImageList decoder");
+                    t.setDaemon(true);
+                    t.setPriority(Thread.MIN_PRIORITY);
+                    return t;
+                }
+            });
+        }
+        return defaultDecodeExecutor;
+    }
+
+    /**
+     * Removes the image file and the corresponding image from the list.<br/>
+     * A pending decode of the file is cancelled.
      * @param pos Index
      * @return removed file
      */
     @Override
     public synchronized File removeImage(int pos) {
-        images.remove(pos);
-        titles.remove(pos);
-        File f = files.remove(pos);
+        File f = files.get(pos);
+        cancelDecode(pos, f);
+        removeItems(pos, pos + 1);
         
         fireImageRemoved(f);
         return f;
@@ -107,16 +483,18 @@ public class FileImageList extends AbstractImageList<File> implements MouseListe
 
         if(pos>=0 && pos<files.size()){
             File old = files.set(pos, newImage);
+            cancelDecode(pos, old);
 
-            if(fotoHeigth>0 && fotoWidth>0){
+            if(lazyLoading){
+                tileCache.remove(old);
+                oversizedTiles.remove(old);
+                unreadableFiles.remove(newImage);
+            }else if(fotoHeigth>0 && fotoWidth>0){
                 try{
-                    BufferedImage img = ImageIO.read(newImage);
-                    ScaleImage.Rectangle preferedSize = ScaleImage.fitToRect(new ScaleImage.Rectangle(0, 0, fotoWidth, fotoHeigth), img);
-                    images.set(pos, ScaleImage.scale(img, preferedSize.width, preferedSize.heigth));
+                    images.set(pos, loadTile(newImage));
                 }catch(Exception e){}
             }
 
-            repaint();
             fireImageReplaced(old, newImage, pos);
 
             return old;
@@ -148,32 +526,1057 @@ public class FileImageList extends AbstractImageList<File> implements MouseListe
     }
 
     /**
-     * Loads the images from the files again in order to adapt to the new component size.
+     * Loads the images from the files again in order to adapt to the new component size.<br/>
+     * In the incremental mode the tiles are rescaled in the background instead, see {@link #setIncrementalResize(boolean)}.
      */
     public synchronized void refreshSize(){
-        images.clear();
-        ArrayList<File> files2 = new ArrayList<File>();
-        for(int i=0; i<files.size(); i++){
+        if(incrementalResize){
+            refreshSizeIncremental();
+            return;
+        }
+
+        if(lazyLoading){
+            // die sichtbaren Kacheln werden beim nächsten paint() neu geladen
+            invalidateTiles();
+            repaint();
+            return;
+        }
+
+        cancelDecodes();
+        // Dateien, die nicht mehr geladen werden können, werden mit Bild und Titel entfernt
+        for(int i=files.size()-1; i>=0; i--){
             try {
-                System.gc();
-                BufferedImage img = ImageIO.read(files.get(i));
-                ScaleImage.Rectangle preferedSize = ScaleImage.fitToRect(new ScaleImage.Rectangle(0, 0, fotoWidth, fotoHeigth), img);
-                images.add(ScaleImage.scale(img, preferedSize.width, preferedSize.heigth));
-                files2.add(files.get(i));
-            } catch (IOException ex) {}
-        }
-        files = files2;
+                images.set(i, loadTile(files.get(i)));
+            } catch (IOException ex) {
+                removeItems(i, i + 1);
+            }
+        }
+        repaint();
+    }
+
+    /**
+     * Keeps the tiles and rescales the ones which deviate from the new size by more than the tolerance in the background:
+     * the visible tiles via the decode scheduler, the others one by one behind them.
+     */
+    private void refreshSizeIncremental() {
+        if (fotoWidth <= 0 || fotoHeigth <= 0 || (fotoWidth == resizeWidth && fotoHeigth == resizeHeigth)) {
+            return;
+        }
+
+        resizeWidth = fotoWidth;
+        resizeHeigth = fotoHeigth;
+        // Decodes für die alte Größe verwerfen
+        tileGeneration++;
+        decodeScheduler.clear();
+
+        if (!lazyLoading) {
+            getDecodeExecutor().execute(new ResizeSweep(tileGeneration, getFirstVisibleIndex()));
+        }
         repaint();
     }
 
     /**
-     * Clears the lists
+     * Rescales the tiles which don't fit the size of the incremental refresh, one tile per execution.
+     * After every tile it is passed to the decode executor again, so the requests of the visible tiles are executed in between.
+     * The tiles are processed from the first visible one to the end and then from the beginning.
+     */
+    private class ResizeSweep implements Runnable {
+
+        private final int generation;
+        private final int start;
+        private int next = 0;
+
+        ResizeSweep(int generation, int start) {
+            this.generation = generation;
+            this.start = Math.max(0, start);
+        }
+
+        @Override
+        public void run() {
+            int index = -1;
+            File f = null;
+            Image old = null;
+            int width;
+            int heigth;
+            synchronized (FileImageList.this) {
+                if (generation != tileGeneration) {
+                    return;
+                }
+
+                int n = files.size();
+                for (; next < n && index < 0; next++) {
+                    int i = (start + next) % n;
+                    Image tile = images.get(i);
+                    if (tile != null && needsRescale(tile) && !unreadableFiles.contains(files.get(i))
+                            && !decodeScheduler.isPending(files.get(i))) {
+                        index = i;
+                        f = files.get(i);
+                        old = tile;
+                    }
+                }
+                if (index < 0) {
+                    return;
+                }
+                width = targetWidth();
+                heigth = targetHeigth();
+            }
+
+            try {
+                BufferedImage tile = loadTile(f, width, heigth);
+                synchronized (FileImageList.this) {
+                    if (generation == tileGeneration) {
+                        storeTile(index, f, old, tile);
+                    }
+                }
+                repaint();
+            } catch (IOException ex) {
+                // die alte Kachel bleibt erhalten
+                unreadableFiles.add(f);
+            }
+
+            getDecodeExecutor().execute(this);
+        }
+    }
+
+    /**
+     * Sets the incremental resize mode. In this mode refreshSize() doesn't reload the files synchronously:
+     * the existing tiles are kept and scaled by the renderer, only the tiles whose size deviates from the new tile size
+     * by more than the tolerance are rescaled in the background, the visible ones first.<br/>
+     * Resizes of the component call refreshSize() automatically, a series of resizes is coalesced into one refresh.<br/>
+     * Default: false
+     * @param incremental true for the incremental mode
+     * @see #setResizeTolerance(double)
+     */
+    public synchronized void setIncrementalResize(boolean incremental) {
+        incrementalResize = incremental;
+        resizeWidth = 0;
+        resizeHeigth = 0;
+        if (!incremental) {
+            resizeTimer.stop();
+        }
+    }
+
+    /**
+     * Returns whether the tiles are rescaled incrementally in the background.<br/>
+     * Default: false
+     * @return true in the incremental resize mode
+     */
+    public boolean isIncrementalResize() {
+        return incrementalResize;
+    }
+
+    /**
+     * Sets the relative deviation from the tile size up to which a tile isn't rescaled in the incremental resize mode,
+     * e.g. 0.1 keeps tiles which are at most 10% too big or too small.<br/>
+     * Default: 0.1
+     * @param tolerance tolerance, 0 to 1
+     */
+    public void setResizeTolerance(double tolerance) {
+        if (tolerance < 0 || tolerance > 1) {
+            throw new IllegalArgumentException("Ungültige Toleranz: " + tolerance);
+        }
+        resizeTolerance = tolerance;
+    }
+
+    /**
+     * Returns the relative deviation from the tile size up to which a tile isn't rescaled in the incremental resize mode.<br/>
+     * Default: 0.1
+     * @return tolerance
+     */
+    public double getResizeTolerance() {
+        return resizeTolerance;
+    }
+
+    /**
+     * Refreshes the tile size once after a series of resizes in the incremental mode.
+     */
+    @Override
+    public void componentResized(ComponentEvent e) {
+        super.componentResized(e);
+        if (incrementalResize) {
+            resizeTimer.restart();
+        }
+    }
+
+    /**
+     * Debounce delay of the directory watching in milliseconds
+     */
+    private static final long WATCH_DELAY = 300;
+    /**
+     * Watches the directory of the directory-backed mode, <b>null</b> if no directory is watched
+     */
+    private DirectoryWatcher watcher = null;
+
+    /**
+     * Keeps the list in sync with a directory (directory-backed mode).<br/>
+     * The files of the directory which aren't in the list yet are added, sorted by their names. Then the directory
+     * is watched with the WatchService of the file system: created files are added, deleted files are removed and
+     * modified files are decoded again in the background, their old tiles stay visible until the new ones are ready. Bursts of events are collected
+     * and applied at once, the lock of the list is taken once per burst. If events were lost the directory is compared completely.<br/>
+     * Subdirectories are not watched. A previously watched directory isn't watched anymore.<br/>
+     * In the lazy mode the added files are decoded when they become visible, otherwise they are decoded in the background
+     * like with {@link #addImageAsync(java.io.File, java.lang.String)}.
+     * @param dir directory
+     * @param filter filter for the files, <b>null</b> for all files
+     * @throws IOException if the directory can't be read or watched
+     * @see #stopWatching()
+     */
+    public void watchDirectory(Path dir, DirectoryStream.Filter<? super Path> filter) throws IOException {
+        DirectoryWatcher w = new DirectoryWatcher(dir, filter, WATCH_DELAY) {
+
+            @Override
+            protected void filesChanged(Set<Path> created, Set<Path> deleted, Set<Path> modified) {
+                applyDirectoryChanges(this, toFiles(created), toFiles(deleted), toFiles(modified));
+            }
+
+            @Override
+            protected void overflow() {
+                try {
+                    synchronizeDirectory(this);
+                } catch (IOException ex) {
+                    // beim nächsten Ereignis wieder abgleichen
+                }
+            }
+        };
+
+        synchronized (this) {
+            stopWatching();
+            watcher = w;
+        }
+
+        // erst nach dem Registrieren abgleichen, damit keine Änderung verloren geht
+        try {
+            synchronizeDirectory(w);
+        } catch (IOException ex) {
+            stopWatching();
+            throw ex;
+        }
+        w.start();
+    }
+
+    /**
+     * Stops watching the directory, the files stay in the list.
+     */
+    public synchronized void stopWatching() {
+        if (watcher != null) {
+            watcher.close();
+            watcher = null;
+        }
+    }
+
+    /**
+     * Returns the directory which is watched.
+     * @return directory or <b>null</b>
+     */
+    public synchronized Path getWatchedDirectory() {
+        return watcher == null ? null : watcher.getDirectory();
+    }
+
+    /**
+     * Compares the list with the directory: files of the directory which are missing are added,
+     * files of the directory which don't exist anymore are removed.
+     */
+    private void synchronizeDirectory(DirectoryWatcher w) throws IOException {
+        // Verzeichnis ohne Sperre lesen
+        Set<File> entries = new HashSet<File>();
+        DirectoryStream<Path> stream = Files.newDirectoryStream(w.getDirectory(), getFilter(w));
+        try {
+            for (Path p : stream) {
+                entries.add(p.toFile());
+            }
+        } finally {
+            stream.close();
+        }
+
+        File dir = w.getDirectory().toFile();
+        Set<File> deleted = new HashSet<File>();
+        synchronized (this) {
+            for (int i = 0; i < files.size(); i++) {
+                File f = files.get(i);
+                if (!entries.remove(f) && dir.equals(f.getParentFile())) {
+                    deleted.add(f);
+                }
+            }
+            applyDirectoryChanges(w, entries, deleted, Collections.<File>emptySet());
+        }
+    }
+
+    private static DirectoryStream.Filter<? super Path> getFilter(DirectoryWatcher w) {
+        if (w.getFilter() != null) {
+            return w.getFilter();
+        }
+        return new DirectoryStream.Filter<Path>() {
+
+            @Override
+            public boolean accept(Path entry) {
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Applies the changes of the directory in one pass over the list: modified files are decoded again in the background,
+     * deleted files are removed and the created files which aren't in the list yet are appended, sorted by their names.
+     */
+    private synchronized void applyDirectoryChanges(DirectoryWatcher w, Set<File> created, Set<File> deleted, Set<File> modified) {
+        if (watcher != w) {
+            // wurde inzwischen beendet
+            return;
+        }
+
+        List<Integer> removed = new ArrayList<Integer>();
+        List<Integer> replaced = new ArrayList<Integer>();
+        Set<File> present = new HashSet<File>();
+        for (int i = 0; i < files.size(); i++) {
+            File f = files.get(i);
+            if (deleted.contains(f)) {
+                removed.add(i);
+            } else if (modified.contains(f)) {
+                replaced.add(i);
+                present.add(f);
+            } else if (created.contains(f)) {
+                // war schon vor dem Erstellen-Ereignis in der Liste
+                present.add(f);
+            }
+        }
+
+        // vor dem Entfernen, solange die Indizes noch stimmen, die Kacheln werden im Hintergrund getauscht
+        for (int i : replaced) {
+            reloadImage(i);
+        }
+
+        // zusammenhängende Bereiche von hinten entfernen
+        int r = removed.size() - 1;
+        while (r >= 0) {
+            int to = removed.get(r) + 1;
+            int from = to - 1;
+            while (r > 0 && removed.get(r - 1) == from - 1) {
+                from--;
+                r--;
+            }
+            removeRange(from, to);
+            r--;
+        }
+
+        List<File> added = new ArrayList<File>();
+        for (File f : created) {
+            if (!present.contains(f)) {
+                added.add(f);
+            }
+        }
+        for (File f : modified) {
+            // z.B. beim Erstellen noch nicht lesbar gewesen
+            if (!present.contains(f)) {
+                added.add(f);
+            }
+        }
+        Collections.sort(added);
+        addFiles(added);
+    }
+
+    /**
+     * Appends the files with one imagesAdded() event, then they are decoded in the background.
+     * In the lazy mode they are decoded when they become visible.
+     */
+    private void addFiles(List<File> added) {
+        if (added.isEmpty()) {
+            return;
+        }
+
+        int from = count();
+        addTiles(added, null);
+        if (!lazyLoading && fotoWidth > 0 && fotoHeigth > 0) {
+            for (int i = from; i < count(); i++) {
+                startDecode(i, null);
+            }
+        }
+    }
+
+    private static Set<File> toFiles(Set<Path> paths) {
+        Set<File> result = new HashSet<File>(paths.size() * 2);
+        for (Path p : paths) {
+            result.add(p.toFile());
+        }
+        return result;
+    }
+
+    /**
+     * Adds the files of a directory, sorted by their paths, with one thread per processor.
+     * @param dir directory
+     * @param filter filter for the files, <b>null</b> for all files
+     * @param recursive true to add the files of the subdirectories too
+     * @return number of added files
+     * @throws IOException if the directory can't be read
+     * @see #addDirectory(java.nio.file.Path, java.nio.file.DirectoryStream.Filter, boolean, java.util.Comparator, int)
+     */
+    public int addDirectory(Path dir, DirectoryStream.Filter<? super Path> filter, boolean recursive) throws IOException {
+        return addDirectory(dir, filter, recursive, null, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Number of decodes per thread which addDirectory() starts ahead of the first file which isn't appended yet
+     */
+    private static final int ADD_DIRECTORY_WINDOW = 4;
+
+    /**
+     * Adds the files of a directory in the specified order.<br/>
+     * The directory is walked first, then the files are loaded by a pool of decode threads like
+     * {@link #loadTile(java.io.File, int, int)} does, so the thumbnail cache and the embedded thumbnails are used.
+     * Only a few decodes per thread are started ahead of the first file which isn't appended yet,
+     * so at most one full image per thread and a few tiles are in memory at once. Whenever the next files in order are loaded,
+     * they are appended at once and the listeners receive one imagesAdded() event for them.
+     * The list is only locked while appending. Files which can't be decoded are skipped.<br/>
+     * In the lazy mode, or if the list has no size yet, the files are only walked and the tiles are loaded when they become visible.
+     * @param dir directory
+     * @param filter filter for the files, <b>null</b> for all files
+     * @param recursive true to add the files of the subdirectories too
+     * @param order order of the added files, <b>null</b> to sort them by their paths
+     * @param threads number of decode threads
+     * @return number of added files
+     * @throws IOException if the directory can't be read
+     * @see ImageListBatchListener#imagesAdded(java.util.List, int)
+     */
+    public int addDirectory(final Path dir, final DirectoryStream.Filter<? super Path> filter, boolean recursive,
+            Comparator<? super File> order, int threads) throws IOException {
+        if (dir == null || threads <= 0) {
+            throw new IllegalArgumentException("Ungülige Parameter: Verzeichnis(" + dir + ") / Threads(" + threads + ")");
+        }
+
+        final List<File> found = new ArrayList<File>();
+        Files.walkFileTree(dir, EnumSet.noneOf(FileVisitOption.class), recursive ? Integer.MAX_VALUE : 1, new SimpleFileVisitor<Path>() {
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (attrs.isRegularFile() && (filter == null || filter.accept(file))) {
+                    found.add(file.toFile());
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
+                if (file.equals(dir)) {
+                    // Verzeichnis selbst nicht lesbar
+                    throw exc;
+                }
+                // nicht lesbare Einträge überspringen
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        if (order == null) {
+            Collections.sort(found);
+        } else {
+            Collections.sort(found, order);
+        }
+
+        final int width;
+        final int heigth;
+        synchronized (this) {
+            width = lazyLoading ? 0 : targetWidth();
+            heigth = lazyLoading ? 0 : targetHeigth();
+        }
+        if (width <= 0 || heigth <= 0) {
+            // wird beim Zeichnen geladen
+            return addTiles(found, null);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "FileImageList addDirectory");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        // begonnene Dekodierungen in der Reihenfolge der Dateien, höchstens ADD_DIRECTORY_WINDOW je Thread
+        LinkedList<Future<BufferedImage>> window = new LinkedList<Future<BufferedImage>>();
+        int maxWindow = ADD_DIRECTORY_WINDOW * threads;
+        int next = 0;
+        int appended = 0;
+        int added = 0;
+        try {
+            while (appended < found.size()) {
+                while (next < found.size() && window.size() < maxWindow) {
+                    final File f = found.get(next++);
+                    window.add(pool.submit(new Callable<BufferedImage>() {
+
+                        @Override
+                        public BufferedImage call() throws IOException {
+                            return loadTile(f, width, heigth);
+                        }
+                    }));
+                }
+
+                // auf die nächste Datei warten, danach alle direkt folgenden fertigen Dateien mitnehmen
+                List<BufferedImage> tiles = new ArrayList<BufferedImage>();
+                do {
+                    tiles.add(awaitTile(window.removeFirst()));
+                } while (!window.isEmpty() && window.getFirst().isDone());
+
+                added += addTiles(found.subList(appended, appended + tiles.size()), tiles);
+                appended += tiles.size();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } finally {
+            // bei einem Fehler die restlichen Dekodierungen abbrechen
+            pool.shutdownNow();
+        }
+        return added;
+    }
+
+    /**
+     * Waits for the decode of addDirectory(), <b>null</b> if the file couldn't be decoded.
+     */
+    private static BufferedImage awaitTile(Future<BufferedImage> decode) throws InterruptedException {
+        try {
+            return decode.get();
+        } catch (ExecutionException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Appends the files with their tiles at once and fires one imagesAdded() event.
+     * @param found files in their order
+     * @param tiles tiles in the order of the files, files without a tile are skipped - <b>null</b> if the tiles are loaded when they become visible
+     * @return number of added files
+     */
+    private synchronized int addTiles(List<File> found, List<BufferedImage> tiles) {
+        int from = count();
+        List<File> added = new ArrayList<File>(found.size());
+        for (int i = 0; i < found.size(); i++) {
+            File f = found.get(i);
+            Image tile = tiles == null ? null : tiles.get(i);
+            if (tiles != null && tile == null) {
+                // konnte nicht dekodiert werden
+                continue;
+            }
+
+            int pos = addItem(tile, f.getName());
+            files.set(pos, f);
+            added.add(f);
+        }
+
+        if (!added.isEmpty()) {
+            fireImagesAdded(added, from);
+        }
+        return added.size();
+    }
+
+    /**
+     * Sets whether the thumbnails embedded in the image files (e.g. EXIF thumbnails of JPEG files) are used instead of decoding the whole image.<br/>
+     * A thumbnail is only used as long as it is at least as big as the tile.<br/>
+     * Default: true
+     * @param use true to use embedded thumbnails
+     */
+    public void setUseEmbeddedThumbnails(boolean use) {
+        useEmbeddedThumbnails = use;
+    }
+
+    /**
+     * Returns whether the thumbnails embedded in the image files are used.<br/>
+     * Default: true
+     * @return true if embedded thumbnails are used
+     */
+    public boolean isUsingEmbeddedThumbnails() {
+        return useEmbeddedThumbnails;
+    }
+
+    /**
+     * Sets a disk cache for the scaled tiles.<br/>
+     * Tiles which are in the cache don't have to be decoded and scaled again, e.g. after a restart or in refreshSize().<br/>
+     * Default: null
+     * @param cache thumbnail cache or <b>null</b> to disable caching
+     */
+    public void setThumbnailCache(ThumbnailCache cache) {
+        thumbnailCache = cache;
+    }
+
+    /**
+     * Returns the disk cache for the scaled tiles.
+     * @return thumbnail cache or <b>null</b>
+     */
+    public ThumbnailCache getThumbnailCache() {
+        return thumbnailCache;
+    }
+
+    /**
+     * Sets the lazy mode. In the lazy mode only the file references are kept,
+     * the tiles are decoded in the background when they (or their neighbours, see {@link #setPrefetchMargin(int)}) become visible.
+     * The decoded tiles are kept in a LRU cache whose size is limited by {@link #setTileCacheSize(long)}.
+     * Until a tile is decoded a placeholder is drawn.<br/>
+     * Default: false
+     * @param lazy true to load the tiles on demand
+     */
+    public synchronized void setLazyLoading(boolean lazy) {
+        if (lazy == lazyLoading) {
+            return;
+        }
+
+        lazyLoading = lazy;
+        for (int i = 0; i < images.size(); i++) {
+            if (lazy) {
+                Image tile = images.set(i, null);
+                if (tile != null && !tileCache.put(files.get(i), tile)) {
+                    // bis zum nächsten paint(), dort bleiben nur die sichtbaren
+                    oversizedTiles.put(files.get(i), tile);
+                }
+            } else {
+                // fehlende Kacheln werden beim nächsten paint() geladen
+                images.set(i, cachedTile(files.get(i)));
+            }
+        }
+
+        if (!lazy) {
+            tileCache.clear();
+            oversizedTiles.clear();
+        }
+        repaint();
+    }
+
+    /**
+     * Returns whether the tiles are loaded on demand.<br/>
+     * Default: false
+     * @return true in the lazy mode
+     */
+    public boolean isLazyLoading() {
+        return lazyLoading;
+    }
+
+    /**
+     * Sets the maximum total size of the decoded tiles in the lazy mode.<br/>
+     * Default: 64 MB
+     * @param bytes size of the pixel data in bytes
+     */
+    public void setTileCacheSize(long bytes) {
+        tileCache.setMaxSize(bytes);
+    }
+
+    /**
+     * Returns the maximum total size of the decoded tiles in the lazy mode.
+     * @return size in bytes
+     */
+    public long getTileCacheSize() {
+        return tileCache.getMaxSize();
+    }
+
+    /**
+     * Returns the cache of the decoded tiles in the lazy mode, e.g. for statistics.
+     * @return tile cache
+     */
+    public ImageCache<File> getTileCache() {
+        return tileCache;
+    }
+
+    /**
+     * Sets the number of images before and after the visible ones which are decoded in advance in the lazy mode.<br/>
+     * Default: 10
+     * @param margin number of images
+     */
+    public void setPrefetchMargin(int margin) {
+        if (margin < 0) {
+            throw new IllegalArgumentException("Ungültiger Prefetch Bereich: " + margin);
+        }
+        prefetchMargin = margin;
+        decodeScheduler.setWindow(Math.max(30, 3 * margin));
+    }
+
+    /**
+     * Returns the number of images before and after the visible ones which are decoded in advance.<br/>
+     * Default: 10
+     * @return number of images
+     */
+    public int getPrefetchMargin() {
+        return prefetchMargin;
+    }
+
+    /**
+     * Snapshot which additionally contains the files
+     */
+    protected static class FileState extends State {
+
+        /**
+         * Files, must not be modified
+         */
+        public final File[] files;
+        /**
+         * Asynchronous decodes of the rows, <b>null</b> if unknown
+         */
+        private final Future<?>[] decodes;
+
+        protected FileState(Image[] images, String[] titles, File[] files) {
+            super(images, titles);
+            this.files = files;
+            this.decodes = null;
+        }
+
+        protected FileState(State state, File[] files) {
+            this(state, files, null);
+        }
+
+        private FileState(State state, File[] files, Future<?>[] decodes) {
+            super(state);
+            this.files = files;
+            this.decodes = decodes;
+        }
+
+        /**
+         * Returns whether the tile of the row is decoded asynchronously, e.g. for addImageAsync()
+         */
+        private boolean isDecoding(int index) {
+            return decodes != null && index < decodes.length && decodes[index] != null;
+        }
+    }
+
+    @Override
+    protected State createState() {
+        State s = super.createState();
+        return new FileState(s, items.toArray(fileColumn, new File[s.count()]), items.toArray(decodeColumn, new Future<?>[s.count()]));
+    }
+
+    /**
+     * In the lazy mode the tile is taken from the tile cache.
+     */
+    @Override
+    protected Image getTile(State state, int index) {
+        File[] stateFiles = ((FileState) state).files;
+        if (lazyLoading) {
+            return index < stateFiles.length ? cachedTile(stateFiles[index]) : null;
+        }
+        return super.getTile(state, index);
+    }
+
+    /**
+     * Requests the missing tiles of the visible images and of the images within the prefetch margin.<br/>
+     * While scrolling the margin in scroll direction grows with the velocity and the margin behind shrinks.<br/>
+     * Visible tiles which became bigger than their embedded thumbnails are decoded completely.
+     * @see #getDecodeScheduler()
+     */
+    @Override
+    protected void visibleRangePainted(int first, int last) {
+        if (fotoWidth <= 0 || fotoHeigth <= 0 || last < first) {
+            return;
+        }
+
+        FileState state = (FileState) getState();
+        int direction = getScrollDirection();
+        DecodeScheduler<File> scheduler = getDecodeScheduler();
+        scheduler.setVisibleRange(first, last, direction);
+
+        for (int i = first; i <= last; i++) {
+            requestTile(state, i);
+        }
+
+        if (lazyLoading) {
+            int ahead = prefetchMargin;
+            int behind = prefetchMargin;
+            if (direction != 0) {
+                // Bilder die in der nächsten halben Sekunde sichtbar werden
+                int tileSize = (align == Alignment.Vertical ? fotoHeigth : fotoWidth) + spaceBetweenPics;
+                ahead += Math.min(scheduler.getWindow(), (int) (Math.abs(getScrollVelocity()) / 2 / Math.max(1, tileSize)));
+                behind /= 2;
+            }
+
+            int margin = Math.max(ahead, behind);
+            dropOversizedTiles(state, first - margin, last + margin);
+
+            for (int d = 1; d <= margin; d++) {
+                if (d <= (direction < 0 ? behind : ahead)) {
+                    requestTile(state, last + d);
+                }
+                if (d <= (direction < 0 ? ahead : behind)) {
+                    requestTile(state, first - d);
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts decoding the tile of the index in the background if it is missing or has the wrong size.
+     */
+    private void requestTile(FileState state, final int index) {
+        if (index < 0 || index >= state.files.length) {
+            return;
+        }
+
+        final File f = state.files[index];
+        final Image tile = lazyLoading ? cachedTile(f) : state.images[index];
+        final int width = targetWidth();
+        final int heigth = targetHeigth();
+        // das ganze Bild wird nur im Hintergrund dekodiert, nie beim Zeichnen
+        final boolean upgrade = tile != null && isThumbnailTooSmall(tile, width, heigth);
+        if (tile != null && !upgrade && !needsRescale(tile)) {
+            return;
+        }
+
+        if (unreadableFiles.contains(f) || state.isDecoding(index)) {
+            return;
+        }
+
+        final int generation = tileGeneration;
+        getDecodeScheduler().request(f, index, new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    if (generation != tileGeneration) {
+                        return;
+                    }
+
+                    BufferedImage newTile = upgrade ? decodeTile(f, width, heigth) : loadTile(f, width, heigth);
+                    synchronized (FileImageList.this) {
+                        if (generation == tileGeneration) {
+                            storeTile(index, f, tile, newTile);
+                        }
+                    }
+                    repaint();
+                } catch (IOException ex) {
+                    if (upgrade) {
+                        // das Vorschaubild bleibt erhalten
+                        thumbnailTiles.remove(tile);
+                    } else {
+                        // eine alte Kachel bleibt erhalten
+                        unreadableFiles.add(f);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns whether the tile was created from an embedded thumbnail which is smaller than the size the tile is decoded to.
+     */
+    private boolean isThumbnailTooSmall(Image tile, int width, int heigth) {
+        Dimension thumbSize = thumbnailTiles.get(tile);
+        if (thumbSize == null) {
+            return false;
+        }
+
+        long size = ScaleImage.fitSize(width, heigth, thumbSize.width, thumbSize.height);
+        return ScaleImage.packedWidth(size) > thumbSize.width || ScaleImage.packedHeigth(size) > thumbSize.height;
+    }
+
+    /**
+     * Returns whether an existing tile has to be scaled again.<br/>
+     * In the lazy mode tiles which don't fit the tile size are scaled again, in the incremental resize mode
+     * the tiles which deviate from the size of the last refresh by more than the tolerance.
+     * With the image pyramid tiles which are too big are kept, they are drawn from their levels.
+     * @see #setPyramidSize(long)
+     */
+    private boolean needsRescale(Image tile) {
+        int width;
+        int heigth;
+        double tolerance;
+        if (incrementalResize) {
+            if (resizeWidth <= 0) {
+                return false;
+            }
+            width = resizeWidth;
+            heigth = resizeHeigth;
+            tolerance = resizeTolerance;
+        } else if (lazyLoading) {
+            width = fotoWidth;
+            heigth = fotoHeigth;
+            tolerance = 0;
+        } else {
+            return false;
+        }
+
+        if (getPyramid() != null && coversTileSize(tile, width, heigth)) {
+            // wird aus der Pyramide verkleinert, kein neuer Decode
+            return false;
+        }
+        return !hasTileSize(tile, width, heigth, tolerance);
+    }
+
+    /**
+     * Returns whether the tile is at least as big as the tile size (with a deviation of 1 pixel).
+     */
+    private static boolean coversTileSize(Image tile, int width, int heigth) {
+        int w = tile.getWidth(null);
+        int h = tile.getHeight(null);
+        long size = ScaleImage.fitSize(width, heigth, w, h);
+        return w + 1 >= ScaleImage.packedWidth(size) && h + 1 >= ScaleImage.packedHeigth(size);
+    }
+
+    /**
+     * Returns whether the tile fits the tile size, with a deviation of at most 1 pixel or the relative tolerance.
+     */
+    private static boolean hasTileSize(Image tile, int width, int heigth, double tolerance) {
+        int w = tile.getWidth(null);
+        int h = tile.getHeight(null);
+        if (w <= 0 || h <= 0) {
+            return true;
+        }
+
+        long size = ScaleImage.fitSize(width, heigth, w, h);
+        int targetWidth = ScaleImage.packedWidth(size);
+        int targetHeigth = ScaleImage.packedHeigth(size);
+        return Math.abs(targetWidth - w) <= Math.max(1, tolerance * targetWidth)
+                && Math.abs(targetHeigth - h) <= Math.max(1, tolerance * targetHeigth);
+    }
+
+    /**
+     * Size to which the tiles are scaled, in the incremental resize mode the size of the last refresh.
+     */
+    private int targetWidth() {
+        return incrementalResize && resizeWidth > 0 ? resizeWidth : fotoWidth;
+    }
+
+    private int targetHeigth() {
+        return incrementalResize && resizeHeigth > 0 ? resizeHeigth : fotoHeigth;
+    }
+
+    /**
+     * Returns the tile of the lazy mode from the tileCache or from the tiles which are too big for it.
+     */
+    private Image cachedTile(File f) {
+        Image tile = tileCache.get(f);
+        return tile != null ? tile : oversizedTiles.get(f);
+    }
+
+    /**
+     * Drops the tiles which are too big for the tileCache if they are outside of the range.
+     */
+    private void dropOversizedTiles(FileState state, int first, int last) {
+        if (oversizedTiles.isEmpty()) {
+            return;
+        }
+
+        Set<File> keep = new HashSet<File>();
+        for (int i = Math.max(0, first); i <= last && i < state.files.length; i++) {
+            keep.add(state.files[i]);
+        }
+        oversizedTiles.keySet().retainAll(keep);
+    }
+
+    /**
+     * Stores a decoded tile, if the tile of the file is still the expected one.
+     */
+    private void storeTile(int index, File f, Image expected, BufferedImage tile) {
+        if (lazyLoading) {
+            if (tileCache.put(f, tile)) {
+                oversizedTiles.remove(f);
+            } else {
+                oversizedTiles.put(f, tile);
+            }
+            if (expected != null) {
+                thumbnailTiles.remove(expected);
+            }
+            return;
+        }
+
+        // der Index kann sich inzwischen geändert haben
+        if (index >= files.size() || files.get(index) != f) {
+            index = files.indexOf(f);
+        }
+        if (index >= 0 && images.get(index) == expected) {
+            images.set(index, tile);
+            if (expected != null) {
+                thumbnailTiles.remove(expected);
+            }
+        }
+    }
+
+    /**
+     * Drops all decoded tiles of the lazy mode and the decodes which are still running.
+     */
+    private void invalidateTiles() {
+        tileGeneration++;
+        tileCache.clear();
+        oversizedTiles.clear();
+        decodeScheduler.clear();
+        unreadableFiles.clear();
+    }
+
+    /**
+     * Loads the image file and scales it down to the current tile size.<br/>
+     * If possible the tile is taken from the thumbnail cache or the embedded thumbnail is used instead of the image itself.
+     * @param f image file
+     * @return scaled image
+     * @throws IOException if the file can't be read or has an unknown format
+     */
+    protected BufferedImage loadTile(File f) throws IOException {
+        return loadTile(f, fotoWidth, fotoHeigth);
+    }
+
+    /**
+     * Loads the image file and scales it down to the specified tile size.<br/>
+     * If possible the tile is taken from the thumbnail cache or the embedded thumbnail is used instead of the image itself.
+     * @param f image file
+     * @param width tile width
+     * @param heigth tile height
+     * @return scaled image
+     * @throws IOException if the file can't be read or has an unknown format
+     */
+    protected BufferedImage loadTile(File f, int width, int heigth) throws IOException {
+        ThumbnailCache cache = thumbnailCache;
+        if (cache != null) {
+            BufferedImage tile = cache.get(f, width, heigth, ScaleImage.Quality.Fast);
+            if (tile != null) {
+                return tile;
+            }
+        }
+
+        BufferedImage tile = null;
+        if (useEmbeddedThumbnails) {
+            BufferedImage thumb = ThumbnailReader.readThumbnail(f, width, heigth);
+            if (thumb != null) {
+                tile = scaleToTile(thumb, width, heigth);
+                thumbnailTiles.put(tile, new Dimension(thumb.getWidth(), thumb.getHeight()));
+            }
+        }
+
+        if (tile == null) {
+            BufferedImage img = ImageIO.read(f);
+            if (img == null) {
+                throw new IOException("Unbekanntes Bildformat: " + f);
+            }
+            tile = scaleToTile(img, width, heigth);
+        }
+
+        if (cache != null) {
+            try {
+                cache.put(f, width, heigth, ScaleImage.Quality.Fast, tile);
+            } catch (IOException ex) {
+                // das Bild wird trotzdem angezeigt, es wird nur nicht gecacht
+            }
+        }
+
+        return tile;
+    }
+
+    /**
+     * Decodes the whole image file, without using the caches or the embedded thumbnail, and scales it to the tile size.
+     */
+    private static BufferedImage decodeTile(File f, int width, int heigth) throws IOException {
+        BufferedImage img = ImageIO.read(f);
+        if (img == null) {
+            throw new IOException("Unbekanntes Bildformat: " + f);
+        }
+        return scaleToTile(img, width, heigth);
+    }
+
+    private static BufferedImage scaleToTile(BufferedImage img, int width, int heigth) {
+        ScaleImage.Rectangle preferedSize = ScaleImage.fitToRect(width, heigth, img);
+        return ScaleImage.scale(img, preferedSize.width, preferedSize.heigth);
+    }
+
+    /**
+     * Clears the lists and cancels the pending decodes
      */
     @Override
     public synchronized void clear() {
-        files.clear();
+        thumbnailTiles.clear();
+        resizeWidth = 0;
+        resizeHeigth = 0;
+        invalidateTiles();
+        cancelDecodes();
         super.clear();
-        titles.clear();
         repaint();
     }
     
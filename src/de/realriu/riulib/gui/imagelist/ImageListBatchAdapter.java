@@ -0,0 +1,54 @@
+package de.realriu.riulib.gui.imagelist;
+
+import java.util.List;
+
+/**
+ * ImageListAdapter which also receives the batch events.<br/>
+ * Because it implements ImageListBatchListener, the list doesn't send the single events for batch operations to it,
+ * e.g. addImages() only calls imagesAdded() and no imageAdded().
+ * @version 1.0
+ * @author riu
+ * @see ImageListBatchListener
+ */
+public abstract class ImageListBatchAdapter<L> extends ImageListAdapter<L> implements ImageListBatchListener<L> {
+
+    /**
+     * Several elements were inserted at once.
+     * @param elements inserted elements
+     * @param from index of the first inserted element
+     */
+    @Override
+    public void imagesAdded(List<L> elements, int from){}
+
+    /**
+     * Several elements were removed at once.
+     * @param elements removed elements
+     * @param from former index of the first removed element
+     */
+    @Override
+    public void imagesRemoved(List<L> elements, int from){}
+
+    /**
+     * Several elements were replaced at once.
+     * @param oldElements replaced elements
+     * @param newElements new elements
+     * @param from index of the first replaced element
+     */
+    @Override
+    public void imagesReplaced(List<L> oldElements, List<L> newElements, int from){}
+
+    /**
+     * All elements were reordered at once.
+     * @param order the element which was at index <i>order[i]</i> before is now at index <i>i</i>
+     */
+    @Override
+    public void imagesReordered(int[] order){}
+
+    /**
+     * An element was inserted at a position.
+     * @param element inserted element
+     * @param pos position of the element
+     */
+    @Override
+    public void imageInserted(L element, int pos){}
+}
@@ -0,0 +1,55 @@
+package de.realriu.riulib.gui.imagelist;
+
+import java.util.List;
+
+/**
+ * Optional extension of ImageListListener for the batch operations of ImageLists.<br/>
+ * A listener implementing this interface receives one event per batch operation.
+ * Plain ImageListListeners receive the single events instead, e.g. one imageAdded() per element of addImages().
+ * @author riu
+ * @version 1.0
+ * @see AbstractImageList#addImageListListener(ImageListListener)
+ */
+public interface ImageListBatchListener<L> extends ImageListListener<L> {
+
+    /**
+     * Several elements were inserted at once, imageAdded() isn't called for them.
+     * @param elements inserted elements
+     * @param from index of the first inserted element
+     * @see AbstractImageList#addImages(java.util.Collection, java.util.List)
+     */
+    public void imagesAdded(List<L> elements, int from);
+
+    /**
+     * Several elements were removed at once, imageRemoved() isn't called for them.
+     * @param elements removed elements
+     * @param from former index of the first removed element
+     * @see AbstractImageList#removeRange(int, int)
+     */
+    public void imagesRemoved(List<L> elements, int from);
+
+    /**
+     * Several elements were replaced at once, imageReplaced() isn't called for them.
+     * @param oldElements replaced elements
+     * @param newElements new elements
+     * @param from index of the first replaced element
+     * @see AbstractImageList#replaceAll(int, java.util.List)
+     */
+    public void imagesReplaced(List<L> oldElements, List<L> newElements, int from);
+
+    /**
+     * All elements were reordered at once, e.g. by a sort.
+     * Plain ImageListListeners aren't notified about reorderings.
+     * @param order the element which was at index <i>order[i]</i> before is now at index <i>i</i>
+     */
+    public void imagesReordered(int[] order);
+
+    /**
+     * An element was inserted at a position, the elements behind it moved one position back.
+     * imageAdded() isn't called for it.
+     * @param element inserted element
+     * @param pos position of the element
+     * @see ReferenzImageList#setOrder(java.util.Comparator)
+     */
+    public void imageInserted(L element, int pos);
+}
@@ -1,9 +1,16 @@
 package de.realriu.riulib.gui.imagelist;
 
+import de.realriu.riulib.helpers.ObjectIntMap;
 import java.awt.Image;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 
 /**
@@ -27,8 +34,38 @@ import java.util.List;
  */
 public class ReferenzImageList<T> extends AbstractImageList<Image> {
 
-    protected final List<T> referenzes = new ArrayList<T>();
+    /**
+     * Spalte der Referenzen in den Items
+     */
+    protected final int referenzColumn = items.addColumn();
+    /**
+     * Referenzen der Bilder, eine Spalte der Items
+     */
+    protected final ItemColumn<T> referenzes = new ItemColumn<T>(referenzColumn);
     protected List<ImageListListener<T>> refL = new ArrayList<ImageListListener<T>>();
+    /**
+     * Referenz => Position des ersten Vorkommens, <b>null</b> wenn die Liste nicht indiziert wird
+     * @see #setIndexed(boolean)
+     */
+    private ObjectIntMap<T> referenzIndex = null;
+    /**
+     * Referenz => Anzahl der Vorkommen, wird bei jeder Änderung exakt mitgezählt
+     */
+    private ObjectIntMap<T> referenzCount = null;
+    /**
+     * Die gespeicherten Positionen kleiner als dieser Wert sind gültig. Ab der ersten Stelle, an der sich Positionen
+     * verschoben haben, werden sie bei der nächsten Suche neu bestimmt. Integer.MAX_VALUE wenn alle gültig sind.
+     */
+    private int validBelow = 0;
+    /**
+     * Verknüpfungen für die Bilder, die gerade per addImages(elements, titles, refs) hinzugefügt werden
+     */
+    private Iterator<? extends T> batchReferenzes = null;
+    /**
+     * Reihenfolge die beim Einfügen eingehalten wird, <b>null</b> wenn am Ende angehängt wird
+     * @see #setOrder(java.util.Comparator)
+     */
+    private Comparator<T> order = null;
     
     /**
      * Creates a new reference image list with the given scrolling direction
@@ -41,24 +78,48 @@ public class ReferenzImageList<T> extends AbstractImageList<Image> {
     }
 
     /**
-     * True if the given reference is in the list.
+     * True if the given reference is in the list.<br/>
+     * With the index this takes constant time, no matter where the list was modified.
      * @param reference  <b>null</b> returns false.
      * @return true  if ref is in list<br>false if ref isn't in list or parameter was null.
+     * @see #setIndexed(boolean)
      */
-    public boolean containsReferenz(T reference) {
+    public synchronized boolean containsReferenz(T reference) {
+        if (reference == null) {
+            return false;
+        }
+        if (referenzCount != null) {
+            return referenzCount.containsKey(reference);
+        }
         return indexOf(reference) >= 0;
     }
 
     /**
-     * Gibt die Position des ersten Vorkommens der übergebenen Referenz zurück.
+     * Gibt die Position des ersten Vorkommens der übergebenen Referenz zurück.<br/>
+     * Mit Index ist das in konstanter Zeit möglich, solange die Referenz vor der ersten Stelle liegt, an der seit der
+     * letzten Suche eingefügt, entfernt oder umsortiert wurde. Sonst werden die Positionen ab dieser Stelle einmal neu
+     * bestimmt, das kostet O(n - Stelle). Wird z.B. mit setOrder() abwechselnd in der Mitte eingefügt und gesucht,
+     * kostet jede Suche deshalb im Schnitt O(n), containsReferenz() bleibt dagegen immer konstant.
      * @param reference <b>null</b> liefert -1 zurück.
      * @return Position der Referenz oder -1  falls die Referenz nicht vorhanden ist. (.equals(Object) wird benutzt um auf Gleichheit zu prüfen.)
      */
-    public int indexOf(T reference) {
+    public synchronized int indexOf(T reference) {
         if (reference == null) {
             return -1;
         }
 
+        if (referenzIndex != null) {
+            if (!referenzCount.containsKey(reference)) {
+                return -1;
+            }
+            int pos = referenzIndex.get(reference, -1);
+            if (pos >= 0 && pos < validBelow) {
+                return pos;
+            }
+            rebuildIndex(validBelow);
+            return referenzIndex.get(reference, -1);
+        }
+
         for (int i = 0; i < referenzes.size(); i++) {
             if (reference.equals(referenzes.get(i))) {
                 return i;
@@ -68,6 +129,132 @@ public class ReferenzImageList<T> extends AbstractImageList<Image> {
         return -1;
     }
 
+    /**
+     * Schaltet den Hash-Index der Referenzen ein oder aus.<br/>
+     * Mit Index benötigen indexOf() und containsReferenz() konstante Zeit statt die ganze Liste zu durchsuchen,
+     * dafür werden die Referenzen zusätzlich in Hashtabellen gehalten (equals() und hashCode() der Referenzen werden benutzt).
+     * Die Anzahl der Vorkommen jeder Referenz wird bei jeder Änderung mitgezählt, containsReferenz() ist deshalb immer
+     * in konstanter Zeit möglich. Die Positionen halten Anhängen, Ersetzen und Vertauschen aktuell, nach Operationen die
+     * Positionen verschieben (z.B. removeImage() in der Mitte) werden sie ab dieser Stelle erst bei der nächsten Suche
+     * mit indexOf() neu bestimmt.<br/>
+     * Default: false
+     * @param indexed true um den Index zu benutzen
+     */
+    public synchronized void setIndexed(boolean indexed) {
+        if (indexed && referenzIndex == null) {
+            referenzIndex = new ObjectIntMap<T>(referenzes.size());
+            referenzCount = new ObjectIntMap<T>(referenzes.size());
+            for (int i = 0; i < referenzes.size(); i++) {
+                T ref = referenzes.get(i);
+                if (ref != null) {
+                    referenzCount.add(ref, 1);
+                }
+            }
+            validBelow = 0;
+        } else if (!indexed) {
+            referenzIndex = null;
+            referenzCount = null;
+        }
+    }
+
+    /**
+     * Gibt zurück ob die Referenzen über einen Hash-Index gesucht werden.
+     * @return true wenn der Index benutzt wird
+     * @see #setIndexed(boolean)
+     */
+    public boolean isIndexed() {
+        return referenzIndex != null;
+    }
+
+    /**
+     * Bestimmt die Positionen der ersten Vorkommen ab der Stelle neu, die Positionen davor und die Anzahlen sind aktuell
+     */
+    private void rebuildIndex(int start) {
+        Set<T> seen = new HashSet<T>();
+        for (int i = start; i < referenzes.size(); i++) {
+            T ref = referenzes.get(i);
+            if (ref != null && seen.add(ref)) {
+                int pos = referenzIndex.get(ref, -1);
+                if (pos < 0 || pos >= start) {
+                    referenzIndex.put(ref, i);
+                }
+            }
+        }
+        validBelow = Integer.MAX_VALUE;
+    }
+
+    /**
+     * Markiert die Positionen ab der Stelle als ungültig
+     */
+    private void positionsShifted(int from) {
+        validBelow = Math.min(validBelow, from);
+    }
+
+    /**
+     * Zählt eine hinzugekommene Referenz und trägt ihre Position ein
+     * @param shifted true wenn sich dabei andere Positionen verschoben haben
+     */
+    private void indexAdded(T ref, int pos, boolean shifted) {
+        if (referenzIndex == null) {
+            return;
+        }
+        if (ref != null) {
+            referenzCount.add(ref, 1);
+        }
+        if (shifted) {
+            positionsShifted(pos);
+        } else if (ref != null && pos < validBelow && referenzIndex.get(ref, Integer.MAX_VALUE) > pos) {
+            referenzIndex.put(ref, pos);
+        }
+    }
+
+    /**
+     * Zählt eine entfernte Referenz und trägt ihre Position aus
+     * @param shifted true wenn sich dabei andere Positionen verschoben haben
+     */
+    private void indexRemoved(T ref, int pos, boolean shifted) {
+        if (referenzIndex == null || ref == null) {
+            return;
+        }
+        int count = referenzCount.add(ref, -1);
+        if (count == 0) {
+            referenzIndex.remove(ref);
+        }
+        if (shifted || (count > 0 && referenzIndex.get(ref, -1) == pos)) {
+            // beim ersten Vorkommen ist das nächste nur durch Suchen zu finden
+            positionsShifted(pos);
+        }
+    }
+
+    /**
+     * Trägt ein, dass eine Referenz von einer Position an eine andere gewechselt ist, die Anzahl bleibt gleich
+     */
+    private void indexMoved(T ref, int from, int to) {
+        if (ref == null) {
+            return;
+        }
+        int first = referenzIndex.get(ref, -1);
+        if (first == from) {
+            if (to < from || referenzCount.get(ref, 0) == 1) {
+                referenzIndex.put(ref, to);
+            } else {
+                // das nächste Vorkommen könnte vor der neuen Position liegen
+                positionsShifted(from);
+            }
+        } else if (to < first || ((first < 0 || first >= validBelow) && to < validBelow)) {
+            // vor validBelow gibt es kein Vorkommen, sonst wäre es eingetragen
+            referenzIndex.put(ref, to);
+        }
+    }
+
+    /**
+     * Markiert die Positionen im Index als ungültig, wenn sich Positionen verschoben haben.
+     * Die Anzahlen der Referenzen bleiben gültig.
+     */
+    protected void invalidateIndex() {
+        positionsShifted(0);
+    }
+
     /**
      * Gibt das ausgewählte Bild zurück.
      * @return Selektiertes Bild
@@ -108,12 +295,15 @@ public class ReferenzImageList<T> extends AbstractImageList<Image> {
 
     /**
      * Fügt ein Bild ohne Verknüpfung aber mit Titel hinzu.
+     * Wird die Liste in einer Reihenfolge gehalten, kommt es ans Ende hinter alle Bilder mit Verknüpfung.
      * @param img Bild
      * @param title Titel
+     * @see #setOrder(java.util.Comparator)
      */
     @Override
     public synchronized void addImage(Image img, String title) {
-        addImage(img, title, null);
+        // innerhalb von addImages(elements, titles, refs) gehört jedes Bild zu seiner Referenz
+        addImage(img, title, batchReferenzes == null ? null : batchReferenzes.next());
     }
 
     /**
@@ -123,13 +313,169 @@ public class ReferenzImageList<T> extends AbstractImageList<Image> {
      * @param ref Verknüpfung
      */
     public synchronized void addImage(Image img, String title, T ref) {
-        images.add(img);
-        titles.add(title == null ? "" : title);
-        referenzes.add(ref);
+        if (order != null) {
+            insertImage(img, title, ref, insertionPoint(ref, referenzes.size()));
+            return;
+        }
+
+        int pos = addItem(img, title);
+        referenzes.set(pos, ref);
+        indexAdded(ref, pos, false);
         fireImageAdded(img);
         fireReferenceAdded(ref);
     }
 
+    /**
+     * Fügt ein Bild an der Position ein, die Bilder dahinter rücken eine Position nach hinten.
+     */
+    private void insertImage(Image img, String title, T ref, int pos) {
+        insertItem(pos, img, title);
+        referenzes.set(pos, ref);
+        indexAdded(ref, pos, pos != referenzes.size() - 1);
+        shiftIndexes(pos, 1);
+
+        fireImageInserted(img, pos);
+        fireReferenceInserted(ref, pos);
+    }
+
+    /**
+     * Passt Auswahl und Hover an, wenn sich die Bilder ab der Position verschieben
+     */
+    private void shiftIndexes(int pos, int delta) {
+        if (selectedImageIndex >= pos) {
+            selectedImageIndex += delta;
+        }
+        if (mouseOverPicNumber >= pos) {
+            mouseOverPicNumber += delta;
+        }
+    }
+
+    /**
+     * Sucht per binärer Suche die Position hinter den gleichen Referenzen, damit die Reihenfolge stabil bleibt.
+     * @param ref einzufügende Referenz
+     * @param size Anzahl der sortierten Referenzen am Anfang der Liste
+     */
+    private int insertionPoint(T ref, int size) {
+        return insertionPoint(ref, size, size);
+    }
+
+    /**
+     * Wie insertionPoint(ref, size), die Position <i>skip</i> wird dabei übergangen (0 &lt;= skip &lt; size, sonst wird nichts übergangen).
+     */
+    private int insertionPoint(T ref, int skip, int size) {
+        int low = 0;
+        int high = skip < size ? size - 1 : size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareOrder(referenzes.get(mid < skip ? mid : mid + 1), ref) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Vergleicht zwei Referenzen nach der Reihenfolge, <b>null</b> kommt immer ans Ende ohne den Comparator zu fragen
+     */
+    private int compareOrder(T a, T b) {
+        return compareNullsLast(order, a, b);
+    }
+
+    private static <T> int compareNullsLast(Comparator<T> order, T a, T b) {
+        if (a == null || b == null) {
+            return a == null ? (b == null ? 0 : 1) : -1;
+        }
+        return order.compare(a, b);
+    }
+
+    /**
+     * Die Reihenfolge als Comparator zum Sortieren, <b>null</b> kommt ans Ende
+     */
+    private Comparator<T> nullsLast(final Comparator<T> order) {
+        return new Comparator<T>() {
+
+            @Override
+            public int compare(T a, T b) {
+                return compareNullsLast(order, a, b);
+            }
+        };
+    }
+
+    /**
+     * Hält die Liste ab jetzt in der Reihenfolge des Comparators.<br/>
+     * Die Liste wird einmal sortiert, danach fügt addImage() jedes Bild per binärer Suche an seiner Position ein
+     * (hinter gleichen Referenzen) und feuert imageInserted() statt imageAdded().
+     * Bilder ohne Verknüpfung (<b>null</b>) stehen immer am Ende in der Reihenfolge, in der sie hinzugefügt wurden,
+     * der Comparator wird für <b>null</b> nie aufgerufen.
+     * replaceReferenz() verschiebt ein Bild, wenn seine neue Referenz nicht mehr an seine Position passt.<br/>
+     * swap() kann die Reihenfolge verletzen, sie wird dann erst durch sort() wiederhergestellt.<br/>
+     * Default: <b>null</b>
+     * @param order Reihenfolge oder <b>null</b> um neue Bilder wieder am Ende anzuhängen
+     */
+    public synchronized void setOrder(Comparator<T> order) {
+        this.order = order;
+        if (order != null) {
+            sort(nullsLast(order), true);
+        }
+    }
+
+    /**
+     * Gibt die Reihenfolge zurück, in der die Liste gehalten wird.
+     * @return Comparator oder <b>null</b>
+     * @see #setOrder(java.util.Comparator)
+     */
+    public Comparator<T> getOrder() {
+        return order;
+    }
+
+    /**
+     * Fügt mehrere Bilder ohne Verknüpfung hinzu. Wird die Liste in einer Reihenfolge gehalten,
+     * werden die Bilder angehängt und die Liste danach einmal stabil sortiert, die Bilder ohne Verknüpfung bleiben am Ende.
+     * @param elements Bilder
+     * @param titles Titel in der Reihenfolge der Bilder oder <b>null</b>
+     * @see #addImages(java.util.Collection, java.util.List, java.util.List)
+     */
+    @Override
+    public synchronized void addImages(Collection<? extends Image> elements, List<String> titles) {
+        Comparator<T> o = order;
+        order = null;
+        try {
+            super.addImages(elements, titles);
+        } finally {
+            order = o;
+        }
+
+        if (o != null) {
+            sort(nullsLast(o), true);
+        }
+    }
+
+    /**
+     * Fügt mehrere Bilder mit ihren Verknüpfungen auf einmal hinzu.<br/>
+     * Die Liste wird nur einmal gesperrt und die Listener erhalten ein einziges imagesAdded() Event.
+     * Wird die Liste in einer Reihenfolge gehalten, werden die Bilder angehängt und die Liste danach einmal stabil sortiert.
+     * @param elements Bilder
+     * @param titles Titel in der Reihenfolge der Bilder oder <b>null</b>
+     * @param refs Verknüpfungen in der Reihenfolge der Bilder, einzelne Einträge dürfen <b>null</b> sein
+     */
+    public synchronized void addImages(Collection<? extends Image> elements, List<String> titles, List<? extends T> refs) {
+        if (refs == null) {
+            throw new IllegalArgumentException("Nullpointer für die Verknüpfungen übergeben!");
+        }
+        if (elements != null && refs.size() != elements.size()) {
+            throw new IllegalArgumentException("Anzahl der Verknüpfungen(" + refs.size() + ") passt nicht zur Anzahl der Bilder(" + elements.size() + ")");
+        }
+
+        batchReferenzes = refs.iterator();
+        try {
+            addImages(elements, titles);
+        } finally {
+            batchReferenzes = null;
+        }
+    }
+
     /**
      * Fügt ein Bild mit zugehöriger Verknüpfung hinzu.
      * @param img Bild
@@ -146,9 +492,11 @@ public class ReferenzImageList<T> extends AbstractImageList<Image> {
      */
     @Override
     public synchronized Image removeImage(int pos) {
-        Image i = images.remove(pos);
-        titles.remove(pos);
-        T ref = referenzes.remove(pos);
+        Image i = images.get(pos);
+        T ref = referenzes.get(pos);
+        removeItems(pos, pos + 1);
+        // nur beim letzten Element verschiebt sich nichts
+        indexRemoved(ref, pos, pos != referenzes.size());
         fireImageRemoved(i);
         fireReferenceRemoved(ref);
         return i;
@@ -164,7 +512,6 @@ public class ReferenzImageList<T> extends AbstractImageList<Image> {
     public synchronized Image replaceImage(int pos, Image newImage) {
         if (pos >= 0 && pos < images.size()) {
             Image i = images.set(pos, newImage);
-            repaint();
             fireImageReplaced(i, newImage, pos);
             return i;
         }
@@ -182,7 +529,12 @@ public class ReferenzImageList<T> extends AbstractImageList<Image> {
     public synchronized T replaceReferenz(int pos, T newImage) {
         if (pos >= 0 && pos < referenzes.size()) {
             T r = referenzes.set(pos, newImage);
+            indexRemoved(r, pos, false);
+            indexAdded(newImage, pos, false);
             fireReferenzReplaced(r, newImage, pos);
+            if (order != null) {
+                reposition(pos);
+            }
             return r;
         }
 
@@ -223,7 +575,11 @@ public class ReferenzImageList<T> extends AbstractImageList<Image> {
     @Override
     public synchronized void clear() {
         super.clear();
-        referenzes.clear();
+        if (referenzIndex != null) {
+            referenzIndex.clear();
+            referenzCount.clear();
+            validBelow = Integer.MAX_VALUE;
+        }
         repaint();
     }
 
@@ -233,8 +589,9 @@ public class ReferenzImageList<T> extends AbstractImageList<Image> {
      * @param animated Gibt an ob die Sortierung animiert werden soll
      * @param speed Geschwindigkeit der Sortieranimation
      * @param aufsteigend Gibt an ob die Liste aufsteigend oder absteigend sortiert wird
-     * @param sortAlgorithm Der zu verwendete Sortieralgorithmus
+     * @param sortAlgorithm wird nicht mehr benutzt, es wird immer stabil in O(n log n) sortiert
      * @see SortAlgorithm
+     * @see #sort(java.util.Comparator, boolean, boolean, int)
      */
     public synchronized void sort(Comparator<T> comperator, boolean animated, int speed, boolean aufsteigend, SortAlgorithm sortAlgorithm) {
 
@@ -245,116 +602,209 @@ public class ReferenzImageList<T> extends AbstractImageList<Image> {
         if (sortAlgorithm == null) {
             throw new IllegalArgumentException("Kein Sortieralgorithmus übergeben (sortAlgorithm==null)");
         }
-        
-
-        if (sortAlgorithm == SortAlgorithm.BubbleSort) {
-            boolean change = true;
-
-            while (change) {
-                change = false;
-                for (int i = 0; i < referenzes.size() - 1; i++) {
-                    if (comperator.compare(referenzes.get(i), referenzes.get(i + 1)) > 0 && aufsteigend) {
-                        swap(i, i + 1, animated, speed);
-                        change = true;
-                    } else if (comperator.compare(referenzes.get(i), referenzes.get(i + 1)) < 0 && !aufsteigend) {
-                        swap(i, i + 1, animated, speed);
-                        change = true;
-                    }
-                }
-            }
-        } else {
-            boolean change = false;
-            for (int i = 0; i < referenzes.size() - 1; i++) {
-                if (comperator.compare(referenzes.get(i), referenzes.get(i + 1)) > 0 && aufsteigend) {
-                    change = true;
-                } else if (comperator.compare(referenzes.get(i), referenzes.get(i + 1)) < 0 && !aufsteigend) {
-                    change = true;
-                }
-            }
 
-            if(change){
-                qSort(0, images.size() - 1, comperator, animated, speed, aufsteigend);
-            }
-        }
+        sort(comperator, aufsteigend, animated, speed);
     }
 
-    private void qSort(int left, int right, Comparator<T> comperator, boolean animated, int speed, boolean aufsteigend) {
-        T pivot = referenzes.get((right + left)/2);
-        int i = left;
-        int j = right;
+    /**
+     * Sortiert die Liste ohne Animation anhand des übergebenen Comparators.<br/>
+     * Es wird nur die Reihenfolge der Positionen stabil sortiert (gleiche Referenzen behalten ihre Reihenfolge, O(n log n)),
+     * danach werden Bilder, Titel und Referenzen in einem Durchgang umgestellt.
+     * Die Listener erhalten ein einziges imagesReordered() Event.
+     * @param comperator Vergleichskriterium
+     * @param aufsteigend Gibt an ob die Liste aufsteigend oder absteigend sortiert wird
+     */
+    public synchronized void sort(Comparator<T> comperator, boolean aufsteigend) {
+        sort(comperator, aufsteigend, false, 50);
+    }
 
-        while (i < j) {
-            if (aufsteigend) {
-                while (comperator.compare(referenzes.get(i), pivot) < 0) {
-                    i++;
-                }
-                
-                while (comperator.compare(referenzes.get(j), pivot) > 0) {
-                    j--;
-                }
-                
-                if (i < j) {
-                    swap(i, j, animated, speed);
-                    i++;
-                    j--;
-                }
+    /**
+     * Sortiert die Liste anhand des übergebenen Comparators.<br/>
+     * Zuerst wird die endgültige Reihenfolge stabil sortiert (O(n log n)). Bei der Animation bewegen sich dann alle Bilder,
+     * die ihre Position ändern, gleichzeitig in einer einzigen Animation direkt an ihre neue Position,
+     * danach werden Bilder, Titel und Referenzen in einem Durchgang umgestellt.
+     * Die Listener erhalten ein einziges imagesReordered() Event.
+     * @param comperator Vergleichskriterium
+     * @param aufsteigend Gibt an ob die Liste aufsteigend oder absteigend sortiert wird
+     * @param animated Gibt an ob die Sortierung animiert werden soll
+     * @param speed Geschwindigkeit der Sortieranimation 1-99 (50 => 1 Sekunde)
+     */
+    public synchronized void sort(final Comparator<T> comperator, boolean aufsteigend, boolean animated, int speed) {
+        if (comperator == null) {
+            throw new IllegalArgumentException("Kein Comperator übergeben (comperator==null)");
+        }
 
-            } else {
-                while (comperator.compare(referenzes.get(i), pivot) > 0) {
-                    i++;
-                }
+        // laufende Vertauschungen abschließen, damit Bilder und Referenzen übereinstimmen
+        finishSwaps();
 
-                while (comperator.compare(referenzes.get(j), pivot) < 0) {
-                    j--;
-                }
+        int n = referenzes.size();
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
 
-                if (i < j) {
-                    swap(i, j, animated, speed);
-                    i++;
-                    j--;
-                }
+        Comparator<Integer> byReferenz = new Comparator<Integer>() {
+
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return comperator.compare(referenzes.get(o1), referenzes.get(o2));
+            }
+        };
+        Arrays.sort(order, aufsteigend ? byReferenz : Collections.reverseOrder(byReferenz));
+
+        int[] permutation = new int[n];
+        boolean changed = false;
+        for (int i = 0; i < n; i++) {
+            permutation[i] = order[i];
+            changed |= permutation[i] != i;
+        }
+
+        if (changed) {
+            reorder(permutation, animated, speed);
+        }
+    }
+
+    /**
+     * Verschiebt das Bild an der Position an die Stelle, an die es nach der Reihenfolge gehört.
+     */
+    private void reposition(int pos) {
+        T ref = referenzes.get(pos);
+        boolean fitsLeft = pos == 0 || compareOrder(referenzes.get(pos - 1), ref) <= 0;
+        boolean fitsRight = pos == referenzes.size() - 1 || compareOrder(ref, referenzes.get(pos + 1)) <= 0;
+        if (fitsLeft && fitsRight) {
+            return;
+        }
+
+        // Einfügeposition ohne das Bild selbst bestimmen
+        int newPos = insertionPoint(ref, pos, referenzes.size());
+        moveItems(pos, 1, newPos);
+        positionsShifted(Math.min(pos, newPos));
+
+        // nur die Positionen zwischen alter und neuer Position ändern sich
+        int n = referenzes.size();
+        int[] moved = new int[n];
+        for (int i = 0; i < n; i++) {
+            moved[i] = i;
+        }
+        if (newPos < pos) {
+            for (int i = newPos + 1; i <= pos; i++) {
+                moved[i] = i - 1;
+            }
+        } else {
+            for (int i = pos; i < newPos; i++) {
+                moved[i] = i + 1;
             }
-            
         }
+        moved[newPos] = pos;
 
+        if (selectedImageIndex >= 0 && selectedImageIndex < n) {
+            selectedImageIndex = indexAfterMove(selectedImageIndex, pos, newPos);
+        }
+        if (mouseOverPicNumber >= 0 && mouseOverPicNumber < n) {
+            mouseOverPicNumber = indexAfterMove(mouseOverPicNumber, pos, newPos);
+        }
+        fireImagesReordered(moved);
+    }
 
-        if (j+1 < right) {
-            qSort(j+1, right, comperator, animated, speed, aufsteigend);
+    private static int indexAfterMove(int index, int from, int to) {
+        if (index == from) {
+            return to;
+        }
+        if (from < to && index > from && index <= to) {
+            return index - 1;
+        }
+        if (to < from && index >= to && index < from) {
+            return index + 1;
         }
-        if (left < j) {
-            qSort(left, j, comperator, animated, speed, aufsteigend);
+        return index;
+    }
+
+    /**
+     * Stellt die Items samt Referenzen um, der Index wird danach neu aufgebaut.
+     * @param order gültige Permutation
+     */
+    @Override
+    protected void permute(int[] order) {
+        super.permute(order);
+        invalidateIndex();
+    }
+
+    @Override
+    protected void fireImagesReordered(int[] order) {
+        super.fireImagesReordered(order);
+        for (ImageListListener<T> l : refL) {
+            notifyImagesReordered(l, order);
         }
-        
     }
 
     /**
-     * Vertauscht die Positionen von 2 Bildern und natürlich die der Referenzen
+     * Vertauscht 2 Items samt Referenzen und passt den Index an.
      * @param pos1 Erstes Bild
      * @param pos2 Zweites Bild
-     * @param animated Annimierte Vertauschung
-     * @param speed Geschwindigkeit der Vertauschung 1-99
-     * * @return Gestarteter Thread der das Vertauschen durchführt.<br>Falls die Vertauschung nicht durchgeführt werden kann, wird null zurückgegeben.
      */
     @Override
-    public synchronized Thread swap(int pos1, int pos2, boolean animated, int speed) {
-        if (pos1 >= 0 && pos1 < referenzes.size() && pos2 >= 0 && pos2 < referenzes.size()) {
-            Thread th = super.swap(pos1, pos2, animated, speed);
-            T t = referenzes.get(pos2);
-            referenzes.set(pos2, referenzes.get(pos1));
-            referenzes.set(pos1, t);
-            return th;
+    protected void exchange(int pos1, int pos2) {
+        super.exchange(pos1, pos2);
+        if (referenzIndex != null) {
+            T t = referenzes.get(pos1);
+            T u = referenzes.get(pos2);
+            if (t == null ? u != null : !t.equals(u)) {
+                indexMoved(t, pos2, pos1);
+                indexMoved(u, pos1, pos2);
+            }
         }
+    }
 
-        return null;
+    /**
+     * Removes the images and their references from index <i>from</i> (inclusive) to index <i>to</i> (exclusive) at once.
+     * The reference listeners receive one imagesRemoved() event.
+     * @param from index of the first image
+     * @param to index after the last image
+     * @return removed images
+     */
+    @Override
+    public synchronized List<Image> removeRange(int from, int to) {
+        List<T> refs = from >= 0 && to <= referenzes.size() && from <= to ? referenzes.copy(from, to) : null;
+        List<Image> removed = super.removeRange(from, to);
+        if (refs != null && !refs.isEmpty()) {
+            for (ImageListListener<T> l : refL) {
+                notifyImagesRemoved(l, refs, from);
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    protected void fireImagesAdded(List<Image> elements, int from) {
+        super.fireImagesAdded(elements, from);
+        List<T> refs = referenzes.copy(from, from + elements.size());
+        for (ImageListListener<T> l : refL) {
+            notifyImagesAdded(l, refs, from);
+        }
     }
 
     protected void fireReferenceAdded(T ref) {
+        if (isBatchRunning()) {
+            return;
+        }
         for (ImageListListener<T> l : refL) {
             l.imageAdded(ref);
         }
     }
 
+    protected void fireReferenceInserted(T ref, int pos) {
+        if (isBatchRunning()) {
+            return;
+        }
+        for (ImageListListener<T> l : refL) {
+            notifyImageInserted(l, ref, pos);
+        }
+    }
+
     protected void fireReferenceRemoved(T ref) {
+        if (isBatchRunning()) {
+            return;
+        }
         for (ImageListListener<T> l : refL) {
             l.imageRemoved(ref);
         }
@@ -384,7 +834,8 @@ public class ReferenzImageList<T> extends AbstractImageList<Image> {
     }
 
     /**
-     * Sortieralgorithmus der zum Sortieren einer ReferenzImageList verwendet werden kann.
+     * Sortieralgorithmus der zum Sortieren einer ReferenzImageList verwendet werden kann.<br/>
+     * Wird nicht mehr ausgewertet, sort() sortiert immer stabil in O(n log n) und animiert nur die endgültigen Bewegungen.
      * @see SortAlgorithm#BubbleSort
      * @see SortAlgorithm#Quicksort
      */
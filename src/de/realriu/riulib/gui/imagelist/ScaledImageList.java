@@ -91,15 +91,12 @@ public class ScaledImageList extends AbstractImageList<Image> implements MouseLi
         if (img instanceof BufferedImage) {
             ScaleImage.Rectangle preferedSize = ScaleImage.fitToRect(new ScaleImage.Rectangle(0, 0, width, heigth),
                     (BufferedImage) img);
-            images.add(ScaleImage.scale((BufferedImage) img, preferedSize.width, preferedSize.heigth));
+            addItem(ScaleImage.scale((BufferedImage) img, preferedSize.width, preferedSize.heigth), title);
         } else {
-            images.add(img);
+            addItem(img, title);
         }
 
-        titles.add(title == null ? "" : title);
-        repaint();
         fireImageAdded(img);
-        System.gc();
     }
 
     /**
@@ -118,10 +115,9 @@ public class ScaledImageList extends AbstractImageList<Image> implements MouseLi
      * @return
      */
     @Override
-    public Image removeImage(int pos) {
-        Image i = images.remove(pos);
-        titles.remove(pos);
-        repaint();
+    public synchronized Image removeImage(int pos) {
+        Image i = images.get(pos);
+        removeItems(pos, pos + 1);
         fireImageRemoved(i);
         return i;
     }
@@ -155,7 +151,6 @@ public class ScaledImageList extends AbstractImageList<Image> implements MouseLi
                 old = images.set(pos, newImage);
             }
 
-            repaint();
             fireImageReplaced(old, newImage, pos);
 
             return old;
@@ -0,0 +1,282 @@
+package de.realriu.riulib.helpers;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Executes decode requests of list items in the order of their importance.<br/>
+ * <br/>
+ * Every request belongs to an item index. The list reports the visible range and the scroll direction,
+ * the scheduler then executes the requests of visible items first, then the requests in scroll direction
+ * and at last the requests behind the visible range. The order is determined when a request is taken out
+ * of the queue, so requests automatically follow the scroll position.<br/>
+ * Requests which are further away from the visible range than the window are dropped without being executed.<br/>
+ * <br/>
+ * Each key can only be queued or running once, further requests of the same key only update its index.
+ * @author riu
+ * @version 1.0
+ * @param <K> key type of the requests
+ * @see #setVisibleRange(int, int, int)
+ * @see #request(java.lang.Object, int, java.lang.Runnable)
+ */
+public class DecodeScheduler<K> {
+
+    private static class Request {
+
+        int index;
+        final Runnable task;
+
+        Request(int index, Runnable task) {
+            this.index = index;
+            this.task = task;
+        }
+    }
+
+    private final LinkedHashMap<K, Request> queue = new LinkedHashMap<K, Request>();
+    private final Set<K> running = new HashSet<K>();
+    private Executor executor;
+    private int window;
+    private int first = 0;
+    private int last = -1;
+    private int direction = 0;
+    private long executed = 0;
+    private long dropped = 0;
+    private int maxQueueDepth = 0;
+
+    /**
+     * Takes the most important request out of the queue and executes it.<br/>
+     * For every queued request one drainer is passed to the executor, dropped requests leave drainers which do nothing.
+     */
+    private final Runnable drainer = new Runnable() {
+
+        @Override
+        public void run() {
+            K key;
+            Request r;
+            synchronized (DecodeScheduler.this) {
+                Map.Entry<K, Request> next = poll();
+                if (next == null) {
+                    return;
+                }
+                key = next.getKey();
+                r = next.getValue();
+                running.add(key);
+            }
+
+            try {
+                r.task.run();
+            } finally {
+                synchronized (DecodeScheduler.this) {
+                    running.remove(key);
+                    executed++;
+                }
+            }
+        }
+    };
+
+    /**
+     * Creates a new scheduler
+     * @param executor executor which executes the requests
+     * @param window maximum distance in items between a request and the visible range
+     */
+    public DecodeScheduler(Executor executor, int window) {
+        if (executor == null || window < 0) {
+            throw new IllegalArgumentException("Ungülige Parameter: Executor(" + executor + ") / Fenster(" + window + ")");
+        }
+        this.executor = executor;
+        this.window = window;
+    }
+
+    /**
+     * Queues a request. If the key is already queued only its index is updated,
+     * if the key is running nothing happens.
+     * @param key key of the request
+     * @param index index of the item
+     * @param task decode
+     * @return true if the request was queued
+     */
+    public boolean request(K key, int index, Runnable task) {
+        Executor ex;
+        synchronized (this) {
+            if (running.contains(key)) {
+                return false;
+            }
+
+            Request r = queue.get(key);
+            if (r != null) {
+                r.index = index;
+                return false;
+            }
+
+            if (distance(index) > window) {
+                dropped++;
+                return false;
+            }
+
+            queue.put(key, new Request(index, task));
+            maxQueueDepth = Math.max(maxQueueDepth, queue.size());
+            ex = executor;
+        }
+
+        ex.execute(drainer);
+        return true;
+    }
+
+    /**
+     * Returns whether a request of the key is queued or running.
+     * @param key key
+     * @return true if the key is pending
+     */
+    public synchronized boolean isPending(K key) {
+        return queue.containsKey(key) || running.contains(key);
+    }
+
+    /**
+     * Sets the visible range and the scroll direction. Queued requests which are outside of the window are dropped.
+     * @param first index of the first visible item
+     * @param last index of the last visible item
+     * @param direction 1 if the list scrolls to higher indexes, -1 if it scrolls to lower indexes, 0 if it doesn't scroll
+     */
+    public synchronized void setVisibleRange(int first, int last, int direction) {
+        this.first = first;
+        this.last = last;
+        this.direction = direction < 0 ? -1 : (direction > 0 ? 1 : 0);
+
+        Iterator<Request> it = queue.values().iterator();
+        while (it.hasNext()) {
+            if (distance(it.next().index) > window) {
+                it.remove();
+                dropped++;
+            }
+        }
+    }
+
+    /**
+     * Removes the queued request of the key. A running request isn't interrupted.
+     * @param key key
+     * @return true if a queued request was removed
+     */
+    public synchronized boolean cancel(K key) {
+        return queue.remove(key) != null;
+    }
+
+    /**
+     * Removes all queued requests. Running requests aren't interrupted.
+     */
+    public synchronized void clear() {
+        queue.clear();
+    }
+
+    /**
+     * Returns the queued request with the highest priority and removes it from the queue.
+     */
+    private Map.Entry<K, Request> poll() {
+        Map.Entry<K, Request> best = null;
+        int bestPriority = Integer.MAX_VALUE;
+        for (Map.Entry<K, Request> e : queue.entrySet()) {
+            int p = priority(e.getValue().index);
+            if (p < bestPriority) {
+                best = e;
+                bestPriority = p;
+            }
+        }
+
+        if (best != null) {
+            queue.remove(best.getKey());
+        }
+        return best;
+    }
+
+    /**
+     * Visible items have the priority 0, then follow the items in scroll direction by their distance
+     * and then the items behind the visible range.
+     */
+    private int priority(int index) {
+        int d = distance(index);
+        if (d == 0 || direction == 0) {
+            return d;
+        }
+
+        boolean ahead = direction > 0 ? index > last : index < first;
+        return ahead ? d : window + d;
+    }
+
+    /**
+     * Distance in items between the index and the visible range
+     */
+    private int distance(int index) {
+        if (index < first) {
+            return first - index;
+        }
+        if (index > last) {
+            return index - last;
+        }
+        return 0;
+    }
+
+    /**
+     * Sets the executor for the following requests.
+     * @param executor executor
+     */
+    public synchronized void setExecutor(Executor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("Nullpointer für den Executor übergeben!");
+        }
+        this.executor = executor;
+    }
+
+    /**
+     * Sets the maximum distance in items between a request and the visible range. Requests which are further away are dropped.
+     * @param window distance in items
+     */
+    public synchronized void setWindow(int window) {
+        if (window < 0) {
+            throw new IllegalArgumentException("Ungültiges Fenster: " + window);
+        }
+        this.window = window;
+    }
+
+    /**
+     * Returns the maximum distance in items between a request and the visible range.
+     * @return distance in items
+     */
+    public synchronized int getWindow() {
+        return window;
+    }
+
+    /**
+     * Returns the number of queued requests.
+     * @return queue depth
+     */
+    public synchronized int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Returns the highest number of queued requests so far.
+     * @return maximum queue depth
+     */
+    public synchronized int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    /**
+     * Returns the number of requests which were dropped because they were outside of the window.
+     * @return dropped requests
+     */
+    public synchronized long getDropCount() {
+        return dropped;
+    }
+
+    /**
+     * Returns the number of executed requests.
+     * @return executed requests
+     */
+    public synchronized long getExecutedCount() {
+        return executed;
+    }
+}
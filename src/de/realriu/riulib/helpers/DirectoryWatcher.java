@@ -0,0 +1,244 @@
+package de.realriu.riulib.helpers;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches a directory with the WatchService of the file system and reports the changed files in batches.<br/>
+ * <br/>
+ * The events are collected until no event arrived for the debounce delay (at most 10 times the delay),
+ * then {@link #filesChanged(java.util.Set, java.util.Set, java.util.Set)} is called once with the net changes:
+ * a file which was created and modified is only reported as created, a file which was created and deleted
+ * isn't reported at all, a file which was deleted and created again is reported as modified.
+ * If the file system lost events, {@link #overflow()} is called instead.<br/>
+ * <br/>
+ * The events are received and reported by a daemon thread, which runs until {@link #close()} is called.
+ * Subdirectories are not watched.
+ * @author riu
+ * @version 1.0
+ */
+public class DirectoryWatcher {
+
+    private enum Change {
+
+        Created, Deleted, Modified
+    }
+
+    private final Path dir;
+    private final DirectoryStream.Filter<? super Path> filter;
+    private final long delay;
+    private final WatchService service;
+    private final Thread thread;
+    /**
+     * Net changes since the last report, in the order of their first event
+     */
+    private final Map<Path, Change> changes = new LinkedHashMap<Path, Change>();
+    private boolean overflowed = false;
+
+    /**
+     * Creates a watcher, it is started with {@link #start()}.
+     * @param dir directory
+     * @param filter filter for the created and modified files, <b>null</b> for all files. Deleted files are always reported.
+     * @param delay debounce delay in milliseconds
+     * @throws IOException if the directory can't be watched
+     */
+    public DirectoryWatcher(Path dir, DirectoryStream.Filter<? super Path> filter, long delay) throws IOException {
+        if (dir == null || delay < 0) {
+            throw new IllegalArgumentException("Ungülige Parameter: Verzeichnis(" + dir + ") / Verzögerung(" + delay + ")");
+        }
+
+        this.dir = dir;
+        this.filter = filter;
+        this.delay = delay;
+        this.service = FileSystems.getDefault().newWatchService();
+        try {
+            dir.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException ex) {
+            service.close();
+            throw ex;
+        }
+
+        thread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                watch();
+            }
+        }, "DirectoryWatcher " + dir);
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Starts the thread which receives the events. The events since the construction are not lost.
+     */
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Stops watching the directory. Collected changes which weren't reported yet are dropped.
+     */
+    public void close() {
+        try {
+            service.close();
+        } catch (IOException ex) {
+            // der Thread beendet sich trotzdem
+        }
+    }
+
+    /**
+     * Returns the filter for the created and modified files.
+     * @return filter or <b>null</b> for all files
+     */
+    public DirectoryStream.Filter<? super Path> getFilter() {
+        return filter;
+    }
+
+    /**
+     * Returns the watched directory.
+     * @return directory
+     */
+    public Path getDirectory() {
+        return dir;
+    }
+
+    private void watch() {
+        try {
+            long firstEvent = 0;
+            long lastEvent = 0;
+            while (true) {
+                WatchKey key;
+                if (changes.isEmpty() && !overflowed) {
+                    key = service.take();
+                } else {
+                    long now = System.currentTimeMillis();
+                    long wait = Math.min(lastEvent + delay, firstEvent + 10 * delay) - now;
+                    key = wait > 0 ? service.poll(wait, TimeUnit.MILLISECONDS) : null;
+                }
+
+                if (key == null) {
+                    report();
+                    continue;
+                }
+
+                long now = System.currentTimeMillis();
+                if (changes.isEmpty() && !overflowed) {
+                    firstEvent = now;
+                }
+                lastEvent = now;
+                collect(key);
+                if (!key.reset()) {
+                    // Verzeichnis wurde gelöscht
+                    report();
+                    return;
+                }
+            }
+        } catch (ClosedWatchServiceException ex) {
+            // close()
+        } catch (InterruptedException ex) {
+            close();
+        }
+    }
+
+    private void collect(WatchKey key) {
+        for (WatchEvent<?> e : key.pollEvents()) {
+            if (e.kind() == StandardWatchEventKinds.OVERFLOW) {
+                overflowed = true;
+                changes.clear();
+                continue;
+            }
+            if (overflowed) {
+                // wird ohnehin komplett abgeglichen
+                continue;
+            }
+
+            Path p = dir.resolve((Path) e.context());
+            Change old = changes.get(p);
+            if (e.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                changes.put(p, old == Change.Deleted ? Change.Modified : (old == null ? Change.Created : old));
+            } else if (e.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                if (old == Change.Created) {
+                    changes.remove(p);
+                } else {
+                    changes.put(p, Change.Deleted);
+                }
+            } else if (old == null) {
+                changes.put(p, Change.Modified);
+            }
+        }
+    }
+
+    private void report() {
+        try {
+            reportChanges();
+        } catch (RuntimeException ex) {
+            // ein Fehler beim Anwenden darf das Beobachten nicht beenden
+        } finally {
+            changes.clear();
+            overflowed = false;
+        }
+    }
+
+    private void reportChanges() {
+        if (overflowed) {
+            overflowed = false;
+            overflow();
+            return;
+        }
+
+        Set<Path> created = new HashSet<Path>();
+        Set<Path> deleted = new HashSet<Path>();
+        Set<Path> modified = new HashSet<Path>();
+        for (Map.Entry<Path, Change> e : changes.entrySet()) {
+            Path p = e.getKey();
+            if (e.getValue() == Change.Deleted) {
+                deleted.add(p);
+            } else if (accept(p)) {
+                (e.getValue() == Change.Created ? created : modified).add(p);
+            }
+        }
+        changes.clear();
+
+        if (!created.isEmpty() || !deleted.isEmpty() || !modified.isEmpty()) {
+            filesChanged(created, deleted, modified);
+        }
+    }
+
+    private boolean accept(Path p) {
+        try {
+            return filter == null || filter.accept(p);
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Is called by the watcher thread with the net changes since the last call.<br/>
+     * The default implementation does nothing.
+     * @param created created files
+     * @param deleted deleted files
+     * @param modified modified files
+     */
+    protected void filesChanged(Set<Path> created, Set<Path> deleted, Set<Path> modified) {
+    }
+
+    /**
+     * Is called by the watcher thread if events were lost, the directory has to be compared completely.<br/>
+     * The default implementation does nothing.
+     */
+    protected void overflow() {
+    }
+}
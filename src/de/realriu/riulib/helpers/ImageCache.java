@@ -0,0 +1,220 @@
+package de.realriu.riulib.helpers;
+
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps images in memory until their total size exceeds a limit, then the least recently used images are removed (LRU).<br/>
+ * The size of an image is the size of its pixel data in bytes.<br/>
+ * All methods are thread safe.
+ * @author riu
+ * @version 1.0
+ * @param <K> key type
+ */
+public class ImageCache<K> {
+
+    private final LinkedHashMap<K, Image> images = new LinkedHashMap<K, Image>(64, 0.75f, true);
+    private long maxBytes;
+    private long bytes = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    /**
+     * Creates a new cache
+     * @param maxBytes maximum total size of the images in bytes
+     */
+    public ImageCache(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Ungültige Cachegröße: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the image of the key and marks it as recently used.
+     * @param key key
+     * @return image or <b>null</b>
+     */
+    public synchronized Image get(K key) {
+        Image img = images.get(key);
+        if (img == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return img;
+    }
+
+    /**
+     * Returns whether there is an image for the key, without marking it as recently used.
+     * @param key key
+     * @return true if the cache contains the key
+     */
+    public synchronized boolean contains(K key) {
+        return images.containsKey(key);
+    }
+
+    /**
+     * Stores an image. If the cache becomes too big the least recently used images are removed.<br/>
+     * Images which are bigger than the whole cache are not stored, an older image of the key is removed then.
+     * @param key key
+     * @param img image
+     * @return false if the image is bigger than the whole cache and was not stored
+     */
+    public synchronized boolean put(K key, Image img) {
+        if (img == null) {
+            throw new IllegalArgumentException("Nullpointer für das Bild übergeben!");
+        }
+
+        long size = sizeOf(img);
+        if (size > maxBytes) {
+            // würde alle anderen Bilder verdrängen, das alte Bild ist aber nicht mehr aktuell
+            remove(key);
+            return false;
+        }
+
+        Image old = images.put(key, img);
+        if (old != null) {
+            bytes -= sizeOf(old);
+        }
+        bytes += size;
+        if (old != null && old != img) {
+            removed(key, old);
+        }
+        evict();
+        return true;
+    }
+
+    /**
+     * Removes the image of the key.
+     * @param key key
+     * @return removed image or <b>null</b>
+     */
+    public synchronized Image remove(K key) {
+        Image old = images.remove(key);
+        if (old != null) {
+            bytes -= sizeOf(old);
+            removed(key, old);
+        }
+        return old;
+    }
+
+    /**
+     * Removes all images.
+     */
+    public synchronized void clear() {
+        Iterator<Map.Entry<K, Image>> it = images.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<K, Image> e = it.next();
+            it.remove();
+            removed(e.getKey(), e.getValue());
+        }
+        bytes = 0;
+    }
+
+    /**
+     * Removes the least recently used images until the total size is below the limit.
+     */
+    private void evict() {
+        Iterator<Map.Entry<K, Image>> it = images.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            Map.Entry<K, Image> e = it.next();
+            bytes -= sizeOf(e.getValue());
+            it.remove();
+            evictions++;
+            removed(e.getKey(), e.getValue());
+        }
+    }
+
+    /**
+     * Is called when an image leaves the cache: it was evicted, replaced by put(), removed or the cache was cleared.<br/>
+     * It can be used to release the resources of the image (e.g. VolatileImage.flush()).<br/>
+     * The default implementation does nothing.
+     * @param key key of the image
+     * @param img removed image
+     */
+    protected void removed(K key, Image img) {
+    }
+
+    /**
+     * Sets the maximum total size of the images.
+     * @param maxBytes size in bytes
+     */
+    public synchronized void setMaxSize(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Ungültige Cachegröße: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+        evict();
+    }
+
+    /**
+     * Returns the maximum total size of the images.
+     * @return size in bytes
+     */
+    public synchronized long getMaxSize() {
+        return maxBytes;
+    }
+
+    /**
+     * Returns the total size of the images in the cache.
+     * @return size in bytes
+     */
+    public synchronized long getSize() {
+        return bytes;
+    }
+
+    /**
+     * Returns the number of images in the cache.
+     * @return image count
+     */
+    public synchronized int count() {
+        return images.size();
+    }
+
+    /**
+     * Returns the number of calls of get() which found an image
+     * @return hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of calls of get() which found no image
+     * @return misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of images which were removed because the cache was too big
+     * @return evictions
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns the size of the pixel data of an image.<br/>
+     * For images which are not BufferedImages 4 bytes per pixel are assumed.
+     * @param img image
+     * @return size in bytes
+     */
+    public static long sizeOf(Image img) {
+        if (img instanceof BufferedImage) {
+            DataBuffer db = ((BufferedImage) img).getRaster().getDataBuffer();
+            return (long) db.getSize() * db.getNumBanks() * DataBuffer.getDataTypeSize(db.getDataType()) / 8;
+        }
+
+        int w = img.getWidth(null);
+        int h = img.getHeight(null);
+        return w > 0 && h > 0 ? 4L * w * h : 0;
+    }
+}
@@ -0,0 +1,256 @@
+package de.realriu.riulib.helpers;
+
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.lang.ref.WeakReference;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Keeps downscaled copies (levels) of images, every level has half the width and height of the level before (mipmap).<br/>
+ * <br/>
+ * Level 0 is the image itself. The levels are created on demand in the background, each one from the next bigger level
+ * that exists, by averaging 2x2 pixels. So an image which is drawn at a different size never has to be scaled
+ * by more than a factor of 2, and it is never scaled down with aliasing.<br/>
+ * <br/>
+ * The levels are kept in a LRU cache whose total size is limited. The cache only references the images weakly,
+ * levels of images which are no longer used are removed when the cache becomes too big.<br/>
+ * All methods are thread safe.
+ * @author riu
+ * @version 1.0
+ * @see #getLevel(java.awt.Image, int, int)
+ * @see #getNearestLevel(java.awt.Image, int, int)
+ */
+public class ImagePyramid {
+
+    /**
+     * Key of a level, references the image weakly and compares it by identity
+     */
+    private static final class LevelKey {
+
+        private final WeakReference<Image> image;
+        private final int hash;
+        private final int level;
+
+        LevelKey(Image image, int level) {
+            this.image = new WeakReference<Image>(image);
+            this.hash = System.identityHashCode(image) * 31 + level;
+            this.level = level;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) {
+                return true;
+            }
+            if (!(o instanceof LevelKey)) {
+                return false;
+            }
+            LevelKey k = (LevelKey) o;
+            Image img = image.get();
+            return level == k.level && img != null && img == k.image.get();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private final ImageCache<LevelKey> levels;
+    private final Set<LevelKey> pending = new HashSet<LevelKey>();
+    private final Executor executor;
+
+    /**
+     * Creates a new pyramid
+     * @param maxBytes maximum total size of the levels in bytes
+     * @param executor executor which creates the levels
+     */
+    public ImagePyramid(long maxBytes, Executor executor) {
+        if (maxBytes <= 0 || executor == null) {
+            throw new IllegalArgumentException("Ungülige Parameter: Größe(" + maxBytes + ") / Executor(" + executor + ")");
+        }
+        this.levels = new ImageCache<LevelKey>(maxBytes);
+        this.executor = executor;
+    }
+
+    /**
+     * Returns the level of the image which is drawn at the specified size: the smallest level which is at least as big.
+     * If it doesn't exist yet, it is created in the background and <b>null</b> is returned.
+     * @param img image
+     * @param width width of the drawn image
+     * @param heigth height of the drawn image
+     * @return level, the image itself if no level is small enough, or <b>null</b>
+     * @see #levelCreated(java.awt.Image, int)
+     */
+    public Image getLevel(Image img, int width, int heigth) {
+        int level = levelFor(img.getWidth(null), img.getHeight(null), width, heigth);
+        if (level == 0) {
+            return img;
+        }
+
+        Image l = levels.get(new LevelKey(img, level));
+        if (l == null) {
+            request(img, level);
+        }
+        return l;
+    }
+
+    /**
+     * Returns the nearest existing level which is at least as big as the specified size, at least the image itself.
+     * If the best level doesn't exist yet, it is created in the background.
+     * @param img image
+     * @param width width of the drawn image
+     * @param heigth height of the drawn image
+     * @return level or the image itself
+     */
+    public Image getNearestLevel(Image img, int width, int heigth) {
+        int level = levelFor(img.getWidth(null), img.getHeight(null), width, heigth);
+        for (int i = level; i > 0; i--) {
+            Image l = levels.get(new LevelKey(img, i));
+            if (l != null) {
+                if (i < level) {
+                    request(img, level);
+                }
+                return l;
+            }
+        }
+
+        if (level > 0) {
+            request(img, level);
+        }
+        return img;
+    }
+
+    /**
+     * Returns the highest level whose size is at least the specified size.
+     * @param imgWidth width of the image
+     * @param imgHeigth height of the image
+     * @param width width of the drawn image
+     * @param heigth height of the drawn image
+     * @return level, 0 for the image itself
+     */
+    public static int levelFor(int imgWidth, int imgHeigth, int width, int heigth) {
+        if (imgWidth <= 0 || imgHeigth <= 0 || width <= 0 || heigth <= 0) {
+            return 0;
+        }
+
+        int level = 0;
+        while (level < 30 && (imgWidth >> (level + 1)) >= width && (imgHeigth >> (level + 1)) >= heigth) {
+            level++;
+        }
+        return level;
+    }
+
+    /**
+     * Creates the level and the missing levels between it and the next bigger existing level in the background.
+     */
+    private void request(final Image img, final int level) {
+        final LevelKey key = new LevelKey(img, level);
+        synchronized (pending) {
+            if (!pending.add(key)) {
+                return;
+            }
+        }
+
+        executor.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    createLevels(img, level);
+                } finally {
+                    synchronized (pending) {
+                        pending.remove(key);
+                    }
+                }
+            }
+        });
+    }
+
+    private void createLevels(Image img, int level) {
+        // nächstgrößere vorhandene Stufe suchen
+        int from = level - 1;
+        Image src = null;
+        for (; from > 0; from--) {
+            src = levels.get(new LevelKey(img, from));
+            if (src != null) {
+                break;
+            }
+        }
+        if (from == 0) {
+            src = img;
+        }
+
+        int transparency = img instanceof BufferedImage ? ((BufferedImage) img).getTransparency() : Transparency.TRANSLUCENT;
+        for (int i = from + 1; i <= level; i++) {
+            BufferedImage half = halve(src, transparency);
+            if (half == null) {
+                // Bild wird noch geladen (Toolkit Bilder)
+                return;
+            }
+            levels.put(new LevelKey(img, i), half);
+            src = half;
+        }
+        levelCreated(img, level);
+    }
+
+    /**
+     * Scales the image to half its size, every pixel is the average of 2x2 pixels.
+     * @return halved image or <b>null</b> if the image isn't loaded completely
+     */
+    private static BufferedImage halve(Image src, int transparency) {
+        int width = Math.max(1, src.getWidth(null) / 2);
+        int heigth = Math.max(1, src.getHeight(null) / 2);
+        BufferedImage half = ScaleImage.createCompatibleImage(width, heigth, transparency, null);
+        Graphics2D g = half.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        boolean complete = g.drawImage(src, 0, 0, width, heigth, null);
+        g.dispose();
+        return complete ? half : null;
+    }
+
+    /**
+     * Is called by the executor when a level was created.<br/>
+     * The default implementation does nothing.
+     * @param img image
+     * @param level created level
+     */
+    protected void levelCreated(Image img, int level) {
+    }
+
+    /**
+     * Removes all levels.
+     */
+    public void clear() {
+        levels.clear();
+    }
+
+    /**
+     * Sets the maximum total size of the levels.
+     * @param maxBytes size in bytes
+     */
+    public void setMaxSize(long maxBytes) {
+        levels.setMaxSize(maxBytes);
+    }
+
+    /**
+     * Returns the maximum total size of the levels.
+     * @return size in bytes
+     */
+    public long getMaxSize() {
+        return levels.getMaxSize();
+    }
+
+    /**
+     * Returns the cache of the levels, e.g. for statistics.
+     * @return level cache
+     */
+    public ImageCache<?> getLevelCache() {
+        return levels;
+    }
+}
@@ -0,0 +1,410 @@
+package de.realriu.riulib.helpers;
+
+import java.util.Arrays;
+
+/**
+ * Table of items whose fields are stored column by column (struct of arrays).<br/>
+ * <br/>
+ * Every item is a row, every field a column. There are object columns and int columns, the int columns hold
+ * primitive data like precomputed layout values without boxing. Rows are always inserted, removed and moved
+ * in all columns at once, so the columns can't drift apart.<br/>
+ * <br/>
+ * The rows are stored in a gap buffer: all columns have a gap at the same position, inserting and removing
+ * at the gap costs O(1), moving the gap costs the distance. So consecutive modifications at nearby positions
+ * (appending, inserting in sorted order, removing ranges) are amortized O(1).<br/>
+ * <br/>
+ * The store is not thread safe. {@link #changed()} is called after every modification.
+ * @author riu
+ * @version 1.0
+ */
+public class ItemStore {
+
+    private static final int MIN_CAPACITY = 16;
+    private Object[][] columns;
+    private int[][] intColumns;
+    private int[] intDefaults;
+    /**
+     * The gap is [gapStart, gapEnd) in the physical arrays
+     */
+    private int gapStart = 0;
+    private int gapEnd;
+    private int capacity = MIN_CAPACITY;
+
+    /**
+     * Creates an empty store
+     * @param objectColumns number of object columns
+     * @param intColumns number of int columns, their values are 0 until they are set
+     */
+    public ItemStore(int objectColumns, int intColumns) {
+        if (objectColumns < 0 || intColumns < 0) {
+            throw new IllegalArgumentException("Ungülige Parameter: Spalten(" + objectColumns + ") / Int-Spalten(" + intColumns + ")");
+        }
+
+        this.columns = new Object[objectColumns][MIN_CAPACITY];
+        this.intColumns = new int[intColumns][MIN_CAPACITY];
+        this.intDefaults = new int[intColumns];
+        this.gapEnd = MIN_CAPACITY;
+    }
+
+    /**
+     * Adds an object column, the existing rows have <b>null</b> in it.
+     * @return index of the new column
+     */
+    public int addColumn() {
+        columns = Arrays.copyOf(columns, columns.length + 1);
+        columns[columns.length - 1] = new Object[capacity];
+        return columns.length - 1;
+    }
+
+    /**
+     * Adds an int column, the existing and new rows have the default value in it.
+     * @param defaultValue value of new rows and of invalidated values
+     * @return index of the new column
+     * @see #invalidate(int)
+     */
+    public int addIntColumn(int defaultValue) {
+        intColumns = Arrays.copyOf(intColumns, intColumns.length + 1);
+        intDefaults = Arrays.copyOf(intDefaults, intDefaults.length + 1);
+        int[] column = new int[capacity];
+        Arrays.fill(column, defaultValue);
+        intColumns[intColumns.length - 1] = column;
+        intDefaults[intDefaults.length - 1] = defaultValue;
+        return intColumns.length - 1;
+    }
+
+    /**
+     * Returns the number of rows.
+     * @return size
+     */
+    public int size() {
+        return capacity - (gapEnd - gapStart);
+    }
+
+    /**
+     * Returns a value of an object column.
+     * @param column column
+     * @param row row
+     * @return value
+     */
+    public Object get(int column, int row) {
+        return columns[column][physical(row)];
+    }
+
+    /**
+     * Sets a value of an object column.
+     * @param column column
+     * @param row row
+     * @param value value
+     * @return previous value
+     */
+    public Object set(int column, int row, Object value) {
+        int p = physical(row);
+        Object old = columns[column][p];
+        columns[column][p] = value;
+        changed();
+        return old;
+    }
+
+    /**
+     * Returns a value of an int column.
+     * @param column int column
+     * @param row row
+     * @return value
+     */
+    public int getInt(int column, int row) {
+        return intColumns[column][physical(row)];
+    }
+
+    /**
+     * Sets a value of an int column. Int columns contain derived data, so changed() isn't called.
+     * @param column int column
+     * @param row row
+     * @param value value
+     */
+    public void setInt(int column, int row, int value) {
+        intColumns[column][physical(row)] = value;
+    }
+
+    /**
+     * Sets all values of an int column to its default value, e.g. if the layout changed.
+     * @param column int column
+     */
+    public void invalidate(int column) {
+        Arrays.fill(intColumns[column], intDefaults[column]);
+    }
+
+    /**
+     * Inserts an empty row: <b>null</b> in the object columns, the default values in the int columns.
+     * @param row position of the new row, 0 to size()
+     */
+    public void insert(int row) {
+        insert(row, 1);
+    }
+
+    /**
+     * Inserts empty rows.
+     * @param row position of the first new row, 0 to size()
+     * @param count number of rows
+     */
+    public void insert(int row, int count) {
+        if (row < 0 || row > size() || count < 0) {
+            throw new IndexOutOfBoundsException("Zeile: " + row + ", Anzahl: " + count + ", Größe: " + size());
+        }
+
+        ensureGap(count);
+        moveGap(row);
+        for (int c = 0; c < intColumns.length; c++) {
+            Arrays.fill(intColumns[c], gapStart, gapStart + count, intDefaults[c]);
+        }
+        gapStart += count;
+        changed();
+    }
+
+    /**
+     * Removes a row.
+     * @param row row
+     */
+    public void remove(int row) {
+        remove(row, row + 1);
+    }
+
+    /**
+     * Removes the rows from <i>from</i> (inclusive) to <i>to</i> (exclusive).
+     * @param from first row
+     * @param to row after the last row
+     */
+    public void remove(int from, int to) {
+        if (from < 0 || to > size() || from > to) {
+            throw new IndexOutOfBoundsException("Bereich: " + from + " - " + to + ", Größe: " + size());
+        }
+
+        moveGap(to);
+        int count = to - from;
+        gapStart -= count;
+        for (Object[] column : columns) {
+            // Referenzen für den GC freigeben
+            Arrays.fill(column, gapStart, gapStart + count, null);
+        }
+        changed();
+    }
+
+    /**
+     * Removes all rows.
+     */
+    public void clear() {
+        for (int c = 0; c < columns.length; c++) {
+            columns[c] = new Object[MIN_CAPACITY];
+        }
+        for (int c = 0; c < intColumns.length; c++) {
+            intColumns[c] = new int[MIN_CAPACITY];
+        }
+        capacity = MIN_CAPACITY;
+        gapStart = 0;
+        gapEnd = MIN_CAPACITY;
+        changed();
+    }
+
+    /**
+     * Exchanges two rows in all columns.
+     * @param row1 first row
+     * @param row2 second row
+     */
+    public void swap(int row1, int row2) {
+        int p1 = physical(row1);
+        int p2 = physical(row2);
+        for (Object[] column : columns) {
+            Object o = column[p1];
+            column[p1] = column[p2];
+            column[p2] = o;
+        }
+        for (int[] column : intColumns) {
+            int i = column[p1];
+            column[p1] = column[p2];
+            column[p2] = i;
+        }
+        changed();
+    }
+
+    /**
+     * Moves a block of rows to another position, the rows in between move into the freed space.
+     * @param from first row of the block
+     * @param count number of rows in the block
+     * @param to position of the first row of the block after the move
+     */
+    public void move(int from, int count, int to) {
+        int size = size();
+        if (from < 0 || count < 0 || from + count > size || to < 0 || to + count > size) {
+            throw new IndexOutOfBoundsException("Block: " + from + " + " + count + " => " + to + ", Größe: " + size);
+        }
+        if (from == to || count == 0) {
+            return;
+        }
+
+        // Lücke hinter das Ende legen, damit die Zeilen zusammenhängend liegen
+        moveGap(size);
+        for (Object[] column : columns) {
+            rotate(column, from, count, to);
+        }
+        for (int[] column : intColumns) {
+            rotate(column, from, count, to);
+        }
+        changed();
+    }
+
+    /**
+     * Rearranges all rows: the row at <i>order[i]</i> is moved to position <i>i</i>.
+     * @param order permutation of the rows
+     */
+    public void permute(int[] order) {
+        int size = size();
+        if (order.length != size) {
+            throw new IllegalArgumentException("Ungültige Reihenfolge übergeben! (Size: " + size + ")");
+        }
+
+        moveGap(size);
+        for (int c = 0; c < columns.length; c++) {
+            Object[] old = columns[c];
+            Object[] column = new Object[old.length];
+            for (int i = 0; i < size; i++) {
+                column[i] = old[order[i]];
+            }
+            columns[c] = column;
+        }
+        for (int c = 0; c < intColumns.length; c++) {
+            int[] old = intColumns[c];
+            int[] column = new int[old.length];
+            for (int i = 0; i < size; i++) {
+                column[i] = old[order[i]];
+            }
+            intColumns[c] = column;
+        }
+        changed();
+    }
+
+    /**
+     * Copies an object column into an array.
+     * @param column column
+     * @param target array with at least size() elements
+     * @return target
+     */
+    public <E> E[] toArray(int column, E[] target) {
+        Object[] c = columns[column];
+        System.arraycopy(c, 0, target, 0, gapStart);
+        System.arraycopy(c, gapEnd, target, gapStart, c.length - gapEnd);
+        return target;
+    }
+
+    /**
+     * Copies an int column into an array.
+     * @param column int column
+     * @param target array with at least size() elements
+     * @return target
+     */
+    public int[] toIntArray(int column, int[] target) {
+        int[] c = intColumns[column];
+        System.arraycopy(c, 0, target, 0, gapStart);
+        System.arraycopy(c, gapEnd, target, gapStart, c.length - gapEnd);
+        return target;
+    }
+
+    /**
+     * Is called after every modification of the rows or the object columns.<br/>
+     * The default implementation does nothing.
+     */
+    protected void changed() {
+    }
+
+    private int physical(int row) {
+        if (row < 0 || row >= size()) {
+            throw new IndexOutOfBoundsException("Zeile: " + row + ", Größe: " + size());
+        }
+        return row < gapStart ? row : row + (gapEnd - gapStart);
+    }
+
+    /**
+     * Moves the gap so that it starts at the row.
+     */
+    private void moveGap(int row) {
+        if (row == gapStart) {
+            return;
+        }
+
+        int gap = gapEnd - gapStart;
+        if (row < gapStart) {
+            // Zeilen [row, gapStart) hinter die Lücke schieben
+            int count = gapStart - row;
+            for (Object[] column : columns) {
+                System.arraycopy(column, row, column, row + gap, count);
+                Arrays.fill(column, row, row + gap, null);
+            }
+            for (int[] column : intColumns) {
+                System.arraycopy(column, row, column, row + gap, count);
+            }
+        } else {
+            // Zeilen [gapEnd, gapEnd + count) vor die Lücke schieben
+            int count = row - gapStart;
+            for (Object[] column : columns) {
+                System.arraycopy(column, gapEnd, column, gapStart, count);
+                Arrays.fill(column, row, row + gap, null);
+            }
+            for (int[] column : intColumns) {
+                System.arraycopy(column, gapEnd, column, gapStart, count);
+            }
+        }
+        gapStart = row;
+        gapEnd = row + gap;
+    }
+
+    /**
+     * Makes sure that the gap can hold the rows, the arrays grow by half of their size.
+     */
+    private void ensureGap(int count) {
+        int gap = gapEnd - gapStart;
+        if (gap >= count) {
+            return;
+        }
+
+        int size = size();
+        capacity = Math.max(size + count, capacity + capacity / 2);
+        int newGapEnd = capacity - (size - gapStart);
+        for (int c = 0; c < columns.length; c++) {
+            Object[] old = columns[c];
+            Object[] column = new Object[capacity];
+            System.arraycopy(old, 0, column, 0, gapStart);
+            System.arraycopy(old, gapEnd, column, newGapEnd, old.length - gapEnd);
+            columns[c] = column;
+        }
+        for (int c = 0; c < intColumns.length; c++) {
+            int[] old = intColumns[c];
+            int[] column = new int[capacity];
+            System.arraycopy(old, 0, column, 0, gapStart);
+            System.arraycopy(old, gapEnd, column, newGapEnd, old.length - gapEnd);
+            intColumns[c] = column;
+        }
+        gapEnd = newGapEnd;
+    }
+
+    /**
+     * Moves the block [from, from+count) to the position <i>to</i> in a contiguous array.
+     */
+    private static void rotate(Object[] array, int from, int count, int to) {
+        Object[] block = Arrays.copyOfRange(array, from, from + count);
+        if (from < to) {
+            // Zeilen dazwischen nach vorne
+            System.arraycopy(array, from + count, array, from, to - from);
+        } else {
+            System.arraycopy(array, to, array, to + count, from - to);
+        }
+        System.arraycopy(block, 0, array, to, count);
+    }
+
+    private static void rotate(int[] array, int from, int count, int to) {
+        int[] block = Arrays.copyOfRange(array, from, from + count);
+        if (from < to) {
+            System.arraycopy(array, from + count, array, from, to - from);
+        } else {
+            System.arraycopy(array, to, array, to + count, from - to);
+        }
+        System.arraycopy(block, 0, array, to, count);
+    }
+}
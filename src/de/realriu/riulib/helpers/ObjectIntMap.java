@@ -0,0 +1,215 @@
+package de.realriu.riulib.helpers;
+
+import java.util.Arrays;
+
+/**
+ * Hash map from objects to primitive int values.<br/>
+ * The entries are stored in two arrays with open addressing (linear probing), so there are no entry objects
+ * and no boxed Integers. Keys are compared with equals(), <b>null</b> keys are not allowed.<br/>
+ * The map is not thread safe.
+ * @author riu
+ * @version 1.0
+ * @param <K> key type
+ */
+public class ObjectIntMap<K> {
+
+    private static final int MIN_CAPACITY = 16;
+    private Object[] keys;
+    private int[] values;
+    private int size = 0;
+
+    /**
+     * Creates an empty map
+     */
+    public ObjectIntMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * Creates an empty map which can hold the specified number of entries without growing
+     * @param expectedSize expected number of entries
+     */
+    public ObjectIntMap(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Ungültige Größe: " + expectedSize);
+        }
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * Returns the value of the key.
+     * @param key key
+     * @param missing value which is returned if the key isn't in the map
+     * @return value or <i>missing</i>
+     */
+    public int get(K key, int missing) {
+        int slot = find(key);
+        return slot < 0 ? missing : values[slot];
+    }
+
+    /**
+     * Returns whether the map contains the key.
+     * @param key key
+     * @return true if the key is in the map
+     */
+    public boolean containsKey(K key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * Stores the value of the key.
+     * @param key key
+     * @param value value
+     */
+    public void put(K key, int value) {
+        if (key == null) {
+            throw new IllegalArgumentException("Nullpointer für den Schlüssel übergeben!");
+        }
+
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != null) {
+            if (keys[slot].equals(key)) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        if (size * 4 > keys.length * 3) {
+            rehash(keys.length * 2);
+        }
+    }
+
+    /**
+     * Adds the delta to the value of the key, a missing key is stored with the value <i>delta</i>.<br/>
+     * If the new value is 0 the key is removed.
+     * @param key key
+     * @param delta delta
+     * @return new value
+     */
+    public int add(K key, int delta) {
+        int slot = find(key);
+        if (slot < 0) {
+            if (delta != 0) {
+                put(key, delta);
+            }
+            return delta;
+        }
+
+        values[slot] += delta;
+        int value = values[slot];
+        if (value == 0) {
+            removeSlot(slot);
+        }
+        return value;
+    }
+
+    /**
+     * Removes the key.
+     * @param key key
+     * @return true if the key was in the map
+     */
+    public boolean remove(K key) {
+        int slot = find(key);
+        if (slot < 0) {
+            return false;
+        }
+        removeSlot(slot);
+        return true;
+    }
+
+    /**
+     * Returns the number of entries.
+     * @return size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes all entries. The map shrinks to its minimal capacity.
+     */
+    public void clear() {
+        if (keys.length > MIN_CAPACITY) {
+            allocate(MIN_CAPACITY);
+        } else {
+            Arrays.fill(keys, null);
+        }
+        size = 0;
+    }
+
+    private int find(K key) {
+        if (key == null) {
+            return -1;
+        }
+
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != null) {
+            if (keys[slot].equals(key)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Removes the entry of the slot and moves the following entries of the probe sequence back,
+     * so no tombstones are needed.
+     */
+    private void removeSlot(int slot) {
+        int mask = keys.length - 1;
+        keys[slot] = null;
+        size--;
+
+        int gap = slot;
+        int next = (slot + 1) & mask;
+        while (keys[next] != null) {
+            int home = hash(keys[next]) & mask;
+            // der Eintrag darf in die Lücke, wenn seine Heimatposition nicht zwischen Lücke und aktueller Position liegt
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                keys[next] = null;
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void rehash(int capacity) {
+        Object[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                put((K) oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new Object[capacity];
+        values = new int[capacity];
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * 3 < expectedSize * 4) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
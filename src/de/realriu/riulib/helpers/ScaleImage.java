@@ -1,8 +1,13 @@
 package de.realriu.riulib.helpers;
 
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
 import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
 import java.io.IOException;
 
 /**
@@ -21,18 +26,52 @@ public class ScaleImage {
      * @throws IOException
      */
     public static BufferedImage scale(BufferedImage src, int width, int height) {
+        return scale(src, width, height, Quality.Fast);
+    }
+
+    /**
+     * Skaliert das übergebene Bild mit der angegebenen Qualität auf die angegebene Größe und gibt es zurück.
+     * @param src Bild das skaliert werden soll
+     * @param width Neue Breite
+     * @param height Neue Höhe
+     * @param quality Skalierungsqualität (<b>null</b> => Quality.Fast)
+     * @return Skaliertes Bild
+     * @see Quality
+     */
+    public static BufferedImage scale(BufferedImage src, int width, int height, Quality quality) {
         BufferedImage bsrc = src;
         BufferedImage bdest =
                 new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
         Graphics2D g = bdest.createGraphics();
+        if (quality == Quality.Smooth) {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        }
         AffineTransform at =
                 AffineTransform.getScaleInstance((double) width / bsrc.getWidth(),
                 (double) height / bsrc.getHeight());
         g.drawRenderedImage(bsrc, at);
+        g.dispose();
 
         return bdest;
     }
 
+    /**
+     * Qualität der Skalierung
+     * @see ScaleImage#scale(java.awt.image.BufferedImage, int, int, de.realriu.riulib.helpers.ScaleImage.Quality)
+     */
+    public static enum Quality {
+
+        /**
+         * Schnelle Skalierung (Nearest Neighbor), Standard
+         */
+        Fast,
+        /**
+         * Bilineare Interpolation, langsamer aber ohne Treppeneffekte
+         */
+        Smooth
+    }
+
     /**
      * Nimmt die Maße des Bildes und rechnet sie so um, das es Perfekt in das übergebene Rechteck passen.
      * <b>Die X & Y Koordinaten des Ergebnisrechtecks werden so umgerechnet, dass das Bild in der Mitte des gewünschten Rechtecks liegt!</b>
@@ -42,16 +81,9 @@ public class ScaleImage {
      */
     public static Rectangle fitToRect(Rectangle preferedSize, BufferedImage image) {
         if (image != null && preferedSize!=null) {
-
-            int nw = image.getWidth() * preferedSize.heigth / image.getHeight();
-            int nh;
-
-            if (nw < preferedSize.width) {
-                nh = preferedSize.heigth;
-            } else {
-                nw = preferedSize.width;
-                nh = image.getHeight() * preferedSize.width / image.getWidth();
-            }
+            long size = fitSize(preferedSize.width, preferedSize.heigth, image.getWidth(), image.getHeight());
+            int nw = packedWidth(size);
+            int nh = packedHeigth(size);
 
             return new Rectangle(preferedSize.x+(preferedSize.width-nw)/2, preferedSize.y+(preferedSize.heigth-nh)/2, nw, nh);
         } else {
@@ -69,21 +101,200 @@ public class ScaleImage {
      */
     public static Rectangle fitToRect(int preferedWidth, int preferedHeigth, BufferedImage image) {
         if (image != null && preferedWidth>0 && preferedHeigth>0) {
+            return fitToRect(preferedWidth, preferedHeigth, image.getWidth(), image.getHeight());
+        } else {
+            throw new IllegalArgumentException("Ungülige Parameter: Image(" + image + ") / Breite(" + preferedWidth + ") / Höhe("+preferedHeigth+")");
+        }
+    }
 
-            int nw = image.getWidth() * preferedHeigth / image.getHeight();
-            int nh;
+    /**
+     * Nimmt die übergebenen Bildmaße und rechnet sie so um, das sie Perfekt in die übergebene Breite und Höhe passen.<br/>
+     * <b>Die X & Y Koordinaten des Ergebnisrechtecks werden auf 0 gesetzt!</b>
+     * @param preferedWidth Gewünschte Breite
+     * @param preferedHeigth Gewünschte Höhe
+     * @param imageWidth Originalbreite des Bildes
+     * @param imageHeigth Originalhöhe des Bildes
+     * @return Die neuen Dimensionen des Bildes
+     */
+    public static Rectangle fitToRect(int preferedWidth, int preferedHeigth, int imageWidth, int imageHeigth) {
+        if (preferedWidth>0 && preferedHeigth>0 && imageWidth>0 && imageHeigth>0) {
+            long size = fitSize(preferedWidth, preferedHeigth, imageWidth, imageHeigth);
+            return new Rectangle(0, 0, packedWidth(size), packedHeigth(size));
+        } else {
+            throw new IllegalArgumentException("Ungülige Parameter: Bild("+imageWidth+"x"+imageHeigth+") / Breite(" + preferedWidth + ") / Höhe("+preferedHeigth+")");
+        }
+    }
 
-            if (nw < preferedWidth) {
-                nh = preferedHeigth;
-            } else {
-                nw = preferedWidth;
-                nh = image.getHeight() * preferedWidth / image.getWidth();
-            }
+    /**
+     * Berechnet die Maße, mit denen ein Bild der angegebenen Größe Perfekt in die übergebene Breite und Höhe passt,
+     * ohne dafür ein Objekt zu erzeugen.<br/>
+     * Die Breite und Höhe werden in einen long gepackt und können mit {@link #packedWidth(long)} und {@link #packedHeigth(long)} ausgelesen werden.
+     * @param preferedWidth Gewünschte Breite
+     * @param preferedHeigth Gewünschte Höhe
+     * @param imageWidth Originalbreite des Bildes (&gt;0)
+     * @param imageHeigth Originalhöhe des Bildes (&gt;0)
+     * @return Gepackte neue Breite und Höhe
+     */
+    public static long fitSize(int preferedWidth, int preferedHeigth, int imageWidth, int imageHeigth) {
+        if (imageWidth <= 0 || imageHeigth <= 0) {
+            throw new IllegalArgumentException("Ungülige Bildgröße: " + imageWidth + "x" + imageHeigth);
+        }
+
+        int nw = imageWidth * preferedHeigth / imageHeigth;
+        int nh;
 
-            return new Rectangle(0, 0, nw, nh);
+        if (nw < preferedWidth) {
+            nh = preferedHeigth;
         } else {
-            throw new IllegalArgumentException("Ungülige Parameter: Image(" + image + ") / Breite(" + preferedWidth + ") / Höhe("+preferedHeigth+")");
+            nw = preferedWidth;
+            nh = imageHeigth * preferedWidth / imageWidth;
         }
+
+        return ((long) nw << 32) | (nh & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Liest die Breite aus dem Ergebnis von {@link #fitSize(int, int, int, int)}
+     * @param packed gepackte Maße
+     * @return Breite
+     */
+    public static int packedWidth(long packed) {
+        return (int) (packed >> 32);
+    }
+
+    /**
+     * Liest die Höhe aus dem Ergebnis von {@link #fitSize(int, int, int, int)}
+     * @param packed gepackte Maße
+     * @return Höhe
+     */
+    public static int packedHeigth(long packed) {
+        return (int) packed;
+    }
+
+    /**
+     * Nimmt die Maße des Bildes und rechnet sie so um, das es Perfekt in das übergebene Rechteck passt.<br/>
+     * Das Ergebnis wird in das übergebene Rechteck <code>out</code> geschrieben, es werden keine Objekte erzeugt.
+     * <b>Die X & Y Koordinaten des Ergebnisrechtecks werden so umgerechnet, dass das Bild in der Mitte des gewünschten Rechtecks liegt!</b>
+     * @param x X-Koordinate des gewünschten Rechtecks
+     * @param y Y-Koordinate des gewünschten Rechtecks
+     * @param preferedWidth Breite des gewünschten Rechtecks
+     * @param preferedHeigth Höhe des gewünschten Rechtecks
+     * @param imageWidth Originalbreite des Bildes (&gt;0)
+     * @param imageHeigth Originalhöhe des Bildes (&gt;0)
+     * @param out Rechteck in das das Ergebnis geschrieben wird (darf wiederverwendet werden)
+     * @return out
+     */
+    public static java.awt.Rectangle fitToRect(int x, int y, int preferedWidth, int preferedHeigth, int imageWidth, int imageHeigth, java.awt.Rectangle out) {
+        long size = fitSize(preferedWidth, preferedHeigth, imageWidth, imageHeigth);
+        int nw = packedWidth(size);
+        int nh = packedHeigth(size);
+        out.setBounds(x + (preferedWidth - nw) / 2, y + (preferedHeigth - nh) / 2, nw, nh);
+        return out;
+    }
+
+    /**
+     * Prüft ob das Bild im Format der Grafikkonfiguration vorliegt und deshalb ohne Umwandlung gezeichnet werden kann.<br/>
+     * Ohne Grafikkonfiguration (headless) gelten die Int-RGB Formate als kompatibel.
+     * @param img Bild
+     * @param gc Grafikkonfiguration des Bildschirms oder <b>null</b>
+     * @return true wenn das Bild kompatibel ist
+     */
+    public static boolean isCompatibleImage(BufferedImage img, GraphicsConfiguration gc) {
+        if (gc == null) {
+            int type = img.getType();
+            return type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB || type == BufferedImage.TYPE_INT_ARGB_PRE;
+        }
+        return img.getColorModel().equals(gc.getColorModel(img.getTransparency()));
+    }
+
+    /**
+     * Wandelt das Bild in das Format der Grafikkonfiguration um, damit es beim Zeichnen beschleunigt übertragen werden kann.<br/>
+     * Bilder von ImageIO.read() liegen oft als TYPE_3BYTE_BGR oder indiziert vor und werden sonst bei jedem Zeichnen umgerechnet.
+     * @param img Bild (muss vollständig geladen sein)
+     * @param gc Grafikkonfiguration des Bildschirms oder <b>null</b> für TYPE_INT_RGB/TYPE_INT_ARGB
+     * @return das Bild selbst wenn es bereits kompatibel ist, sonst eine umgewandelte Kopie
+     */
+    public static BufferedImage toCompatibleImage(Image img, GraphicsConfiguration gc) {
+        if (img == null) {
+            throw new IllegalArgumentException("Nullpointer für das Bild übergeben!");
+        }
+        if (img instanceof BufferedImage && isCompatibleImage((BufferedImage) img, gc)) {
+            return (BufferedImage) img;
+        }
+
+        int transparency = img instanceof BufferedImage ? ((BufferedImage) img).getTransparency() : Transparency.TRANSLUCENT;
+        BufferedImage compatible = createCompatibleImage(img.getWidth(null), img.getHeight(null), transparency, gc);
+        Graphics2D g = compatible.createGraphics();
+        g.drawImage(img, 0, 0, null);
+        g.dispose();
+        return compatible;
+    }
+
+    /**
+     * Erzeugt ein leeres Bild im Format der Grafikkonfiguration.
+     * @param width Breite
+     * @param height Höhe
+     * @param transparency Transparenz (Transparency.OPAQUE, BITMASK oder TRANSLUCENT)
+     * @param gc Grafikkonfiguration des Bildschirms oder <b>null</b> für TYPE_INT_RGB/TYPE_INT_ARGB
+     * @return neues Bild
+     */
+    public static BufferedImage createCompatibleImage(int width, int height, int transparency, GraphicsConfiguration gc) {
+        if (gc != null) {
+            return gc.createCompatibleImage(width, height, transparency);
+        }
+        return new BufferedImage(width, height, transparency == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+    }
+
+    /**
+     * Hält ein VolatileImage (im Grafikspeicher) mit dem Inhalt des Bildes aktuell.<br/>
+     * Ist das VolatileImage <b>null</b> oder inkompatibel geworden, wird ein neues erzeugt,
+     * wurde sein Inhalt verworfen (z.B. durch einen Bildschirmwechsel), wird es neu gefüllt.<br/>
+     * Nach dem Zeichnen sollte mit contentsLost() geprüft werden, ob das Bild stattdessen direkt gezeichnet werden muss.
+     * @param vi bisheriges VolatileImage oder <b>null</b>
+     * @param src Bild dessen Inhalt das VolatileImage haben soll
+     * @param gc Grafikkonfiguration des Bildschirms
+     * @return gültiges VolatileImage oder <b>null</b> wenn keines erzeugt werden konnte
+     */
+    public static VolatileImage validateVolatileImage(VolatileImage vi, Image src, GraphicsConfiguration gc) {
+        int width = src.getWidth(null);
+        int height = src.getHeight(null);
+        if (gc == null || width <= 0 || height <= 0) {
+            return null;
+        }
+
+        for (int tries = 0; tries < 3; tries++) {
+            int state = vi == null ? VolatileImage.IMAGE_INCOMPATIBLE : vi.validate(gc);
+            if (state == VolatileImage.IMAGE_INCOMPATIBLE || vi.getWidth() != width || vi.getHeight() != height) {
+                if (vi != null) {
+                    vi.flush();
+                }
+                int transparency = src instanceof BufferedImage ? ((BufferedImage) src).getTransparency() : Transparency.TRANSLUCENT;
+                try {
+                    vi = gc.createCompatibleVolatileImage(width, height, transparency);
+                } catch (Exception e) {
+                    return null;
+                }
+                if (vi == null) {
+                    return null;
+                }
+                vi.validate(gc);
+                state = VolatileImage.IMAGE_RESTORED;
+            }
+
+            if (state == VolatileImage.IMAGE_RESTORED) {
+                Graphics2D g = vi.createGraphics();
+                if (vi.getTransparency() != Transparency.OPAQUE) {
+                    g.setComposite(java.awt.AlphaComposite.Src);
+                }
+                g.drawImage(src, 0, 0, null);
+                g.dispose();
+            }
+
+            if (!vi.contentsLost()) {
+                return vi;
+            }
+        }
+        return null;
     }
 
     /**
@@ -112,18 +323,29 @@ public class ScaleImage {
             this.y = y;
         }
 
+        /**
+         * Zwei Punkte sind gleich, wenn sie von der selben Klasse sind und die selben Koordinaten haben.
+         * @param obj Vergleichsobjekt
+         * @return true wenn gleich
+         */
         @Override
         public boolean equals(Object obj) {
-            return super.equals(obj);
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || obj.getClass() != getClass()) {
+                return false;
+            }
+            Point p = (Point) obj;
+            return x == p.x && y == p.y;
         }
 
         @Override
         public int hashCode() {
-            return super.hashCode();
+            return 31 * x + y;
         }
 
 
-
         @Override
         public String toString() {
             return "X="+x+" Y="+y;
@@ -160,6 +382,25 @@ public class ScaleImage {
             this.heigth = heigth;
         }
 
+        /**
+         * Zwei Rechtecke sind gleich, wenn sie die selben Koordinaten und Maße haben.
+         * @param obj Vergleichsobjekt
+         * @return true wenn gleich
+         */
+        @Override
+        public boolean equals(Object obj) {
+            if (!super.equals(obj)) {
+                return false;
+            }
+            Rectangle r = (Rectangle) obj;
+            return width == r.width && heigth == r.heigth;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * super.hashCode() + width) + heigth;
+        }
+
         @Override
         public String toString() {
             return super.toString()+" Width="+width+" Heigth="+heigth;
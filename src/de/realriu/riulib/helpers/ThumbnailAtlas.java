@@ -0,0 +1,447 @@
+package de.realriu.riulib.helpers;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores a large amount of thumbnails as raw pixel tiles in one file, which is mapped into memory for reading.<br/>
+ * <br/>
+ * Opening an atlas only reads the index, the pixels stay in the file and are loaded by the operating system when a tile is drawn.
+ * {@link #getTile(int)} returns an image whose raster reads the pixels directly from the mapped file and
+ * {@link #getPixels(int)} gives read-only access to them without copying, so thousands of thumbnails
+ * need neither heap memory nor file handles. {@link #copyTile(int)} copies a tile into a normal image, which can be accelerated
+ * and is faster to draw repeatedly.<br/>
+ * <br/>
+ * File layout (big endian):<br/>
+ * <code>
+ * header: int magic, int version, int tileWidth, int tileHeigth, int flags, int count, long indexOffset<br/>
+ * pixels: for every tile width*heigth packed (A)RGB ints<br/>
+ * index: for every tile int width, int heigth, long pixelOffset, UTF key
+ * </code>
+ * @author riu
+ * @version 1.0
+ * @see #create(java.io.File, int, int, boolean)
+ * @see #open(java.io.File)
+ */
+public class ThumbnailAtlas {
+
+    private static final int MAGIC = 0x52695541; // "RiUA"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int FLAG_ALPHA = 1;
+    /**
+     * Maximum size of one memory mapped region
+     */
+    private static final long MAX_REGION = 1L << 30;
+
+    private final File file;
+    private final int tileWidth;
+    private final int tileHeigth;
+    private final boolean alpha;
+    private final String[] keys;
+    private final int[] widths;
+    private final int[] heigths;
+    private final IntBuffer[] regions;
+    private final int[] tileRegions;
+    private final int[] tileOffsets;
+    private final Map<String, Integer> keyIndex = new HashMap<String, Integer>();
+
+    private ThumbnailAtlas(File file, RandomAccessFile raf) throws IOException {
+        this.file = file;
+        FileChannel channel = raf.getChannel();
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.BIG_ENDIAN);
+        readFully(channel, header, 0);
+        header.flip();
+        if (header.getInt() != MAGIC) {
+            throw new IOException("Keine Thumbnail Atlas Datei: " + file);
+        }
+        if (header.getInt() != VERSION) {
+            throw new IOException("Nicht unterstützte Version der Thumbnail Atlas Datei: " + file);
+        }
+
+        tileWidth = header.getInt();
+        tileHeigth = header.getInt();
+        alpha = (header.getInt() & FLAG_ALPHA) != 0;
+        int count = header.getInt();
+        long indexOffset = header.getLong();
+        if (count < 0 || indexOffset < HEADER_SIZE || indexOffset > channel.size()) {
+            throw new IOException("Beschädigte Thumbnail Atlas Datei: " + file);
+        }
+
+        ByteBuffer indexBuffer = channel.map(FileChannel.MapMode.READ_ONLY, indexOffset, channel.size() - indexOffset);
+        DataInputStream index = new DataInputStream(new ByteBufferInputStream(indexBuffer));
+
+        keys = new String[count];
+        widths = new int[count];
+        heigths = new int[count];
+        tileRegions = new int[count];
+        tileOffsets = new int[count];
+        long[] offsets = new long[count];
+        for (int i = 0; i < count; i++) {
+            widths[i] = index.readInt();
+            heigths[i] = index.readInt();
+            offsets[i] = index.readLong();
+            keys[i] = index.readUTF();
+            if (!keyIndex.containsKey(keys[i])) {
+                keyIndex.put(keys[i], i);
+            }
+        }
+
+        // die Kacheln liegen in der Reihenfolge des Indexes hintereinander => Regionen bis max. 1GB mappen
+        List<IntBuffer> regionList = new ArrayList<IntBuffer>();
+        int i = 0;
+        while (i < count) {
+            long start = offsets[i];
+            int j = i;
+            while (j < count && offsets[j] + 4L * widths[j] * heigths[j] - start <= MAX_REGION) {
+                tileRegions[j] = regionList.size();
+                tileOffsets[j] = (int) ((offsets[j] - start) / 4);
+                j++;
+            }
+            if (j == i) {
+                throw new IOException("Beschädigte Thumbnail Atlas Datei: " + file);
+            }
+            long end = offsets[j - 1] + 4L * widths[j - 1] * heigths[j - 1];
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            regionList.add(mapped.order(ByteOrder.BIG_ENDIAN).asIntBuffer());
+            i = j;
+        }
+
+        regions = regionList.toArray(new IntBuffer[regionList.size()]);
+    }
+
+    /**
+     * Opens an atlas file for reading. The file is mapped into memory and can be closed right after opening.
+     * @param file atlas file
+     * @return atlas
+     * @throws IOException if the file can't be read or isn't a valid atlas
+     */
+    public static ThumbnailAtlas open(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            return new ThumbnailAtlas(file, raf);
+        } finally {
+            // die Mappings bleiben auch nach dem Schließen gültig
+            raf.close();
+        }
+    }
+
+    /**
+     * Creates a new atlas file. Existing files are overwritten.
+     * @param file atlas file
+     * @param tileWidth maximum width of the tiles, bigger images are scaled down
+     * @param tileHeigth maximum height of the tiles, bigger images are scaled down
+     * @param alpha true to store the alpha channel
+     * @return writer which adds the tiles
+     * @throws IOException if the file can't be created
+     */
+    public static Writer create(File file, int tileWidth, int tileHeigth, boolean alpha) throws IOException {
+        return new Writer(file, tileWidth, tileHeigth, alpha);
+    }
+
+    /**
+     * Returns the number of tiles
+     * @return tile count
+     */
+    public int count() {
+        return keys.length;
+    }
+
+    /**
+     * Returns the maximum tile width
+     * @return width
+     */
+    public int getTileWidth() {
+        return tileWidth;
+    }
+
+    /**
+     * Returns the maximum tile height
+     * @return height
+     */
+    public int getTileHeigth() {
+        return tileHeigth;
+    }
+
+    /**
+     * Returns the key of a tile
+     * @param i tile index
+     * @return key
+     */
+    public String getKey(int i) {
+        return keys[i];
+    }
+
+    /**
+     * Returns the index of the first tile with the specified key
+     * @param key key
+     * @return index or -1 if there is no tile with this key
+     */
+    public int indexOf(String key) {
+        Integer i = keyIndex.get(key);
+        return i == null ? -1 : i;
+    }
+
+    /**
+     * Returns the width of a tile
+     * @param i tile index
+     * @return width
+     */
+    public int getWidth(int i) {
+        return widths[i];
+    }
+
+    /**
+     * Returns the height of a tile
+     * @param i tile index
+     * @return height
+     */
+    public int getHeigth(int i) {
+        return heigths[i];
+    }
+
+    /**
+     * Returns the pixels of a tile, read directly from the mapped file.<br/>
+     * The pixels are not copied, they are stored row by row as packed (A)RGB ints.
+     * @param i tile index
+     * @return read-only buffer with getWidth(i) * getHeigth(i) pixels
+     */
+    public IntBuffer getPixels(int i) {
+        IntBuffer pixels = regions[tileRegions[i]].duplicate();
+        pixels.position(tileOffsets[i]);
+        pixels.limit(tileOffsets[i] + widths[i] * heigths[i]);
+        return pixels.slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns a tile as image without copying its pixels, the raster reads them from the mapped file.<br/>
+     * The image is read-only, drawing into it throws an UnsupportedOperationException. Drawing it uses the generic
+     * (slower) loops of Java2D, tiles which are drawn often should be copied with {@link #copyTile(int)}.
+     * @param i tile index
+     * @return image backed by the atlas file
+     */
+    public BufferedImage getTile(int i) {
+        DirectColorModel cm = alpha
+                ? new DirectColorModel(32, 0x00FF0000, 0x0000FF00, 0x000000FF, 0xFF000000)
+                : new DirectColorModel(24, 0x00FF0000, 0x0000FF00, 0x000000FF, 0);
+        SinglePixelPackedSampleModel sm = new SinglePixelPackedSampleModel(DataBuffer.TYPE_INT, widths[i], heigths[i], cm.getMasks());
+        return new BufferedImage(cm, Raster.createWritableRaster(sm, new MappedDataBuffer(getPixels(i)), null), false, null);
+    }
+
+    /**
+     * Returns a copy of a tile as TYPE_INT_RGB or TYPE_INT_ARGB image.
+     * @param i tile index
+     * @return image
+     * @see #getTile(int)
+     */
+    public BufferedImage copyTile(int i) {
+        BufferedImage img = new BufferedImage(widths[i], heigths[i], alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        int[] data = ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+        getPixels(i).get(data, 0, widths[i] * heigths[i]);
+        return img;
+    }
+
+    /**
+     * Returns the atlas file
+     * @return file
+     */
+    public File getFile() {
+        return file;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position);
+            if (n < 0) {
+                throw new IOException("Unerwartetes Dateiende");
+            }
+            position += n;
+        }
+    }
+
+    /**
+     * Read-only DataBuffer over the mapped pixels of a tile
+     */
+    private static class MappedDataBuffer extends DataBuffer {
+
+        private final IntBuffer pixels;
+
+        MappedDataBuffer(IntBuffer pixels) {
+            super(DataBuffer.TYPE_INT, pixels.remaining());
+            this.pixels = pixels;
+        }
+
+        @Override
+        public int getElem(int bank, int i) {
+            return pixels.get(i);
+        }
+
+        @Override
+        public void setElem(int bank, int i, int val) {
+            throw new UnsupportedOperationException("Die Kacheln des Atlas sind schreibgeschützt");
+        }
+    }
+
+    private static class ByteBufferInputStream extends java.io.InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            len = Math.min(len, buffer.remaining());
+            buffer.get(b, off, len);
+            return len;
+        }
+    }
+
+    /**
+     * Writes the tiles of a new atlas file.<br/>
+     * The pixels are written immediately, only the index is kept in memory until {@link #close()}.
+     */
+    public static class Writer {
+
+        private final RandomAccessFile raf;
+        private final FileChannel channel;
+        private final int tileWidth;
+        private final int tileHeigth;
+        private final boolean alpha;
+        private final ByteArrayOutputStream index = new ByteArrayOutputStream();
+        private final DataOutputStream indexOut = new DataOutputStream(index);
+        private int count = 0;
+        private long position = HEADER_SIZE;
+        private boolean closed = false;
+
+        private Writer(File file, int tileWidth, int tileHeigth, boolean alpha) throws IOException {
+            if (tileWidth <= 0 || tileHeigth <= 0) {
+                throw new IllegalArgumentException("width(" + tileWidth + ") und heigth(" + tileHeigth + ") dürfen nicht negativ oder 0 sein!");
+            }
+
+            this.tileWidth = tileWidth;
+            this.tileHeigth = tileHeigth;
+            this.alpha = alpha;
+            raf = new RandomAccessFile(file, "rw");
+            raf.setLength(0);
+            channel = raf.getChannel();
+        }
+
+        /**
+         * Adds a tile. Images which are bigger than the tile size are scaled down.
+         * @param key key of the tile (e.g. file path)
+         * @param img image
+         * @return index of the tile
+         * @throws IOException if the tile can't be written
+         */
+        public int add(String key, BufferedImage img) throws IOException {
+            if (closed) {
+                throw new IllegalStateException("Der Writer wurde bereits geschlossen!");
+            }
+
+            if (key == null || img == null) {
+                throw new IllegalArgumentException("Ungülige Parameter: Key(" + key + ") / Image(" + img + ")");
+            }
+
+            if (img.getWidth() > tileWidth || img.getHeight() > tileHeigth) {
+                ScaleImage.Rectangle size = ScaleImage.fitToRect(tileWidth, tileHeigth, img);
+                img = ScaleImage.scale(img, size.width, size.heigth);
+            }
+
+            int w = img.getWidth();
+            int h = img.getHeight();
+            int[] rgb = img.getRGB(0, 0, w, h, null, 0, w);
+            if (!alpha) {
+                for (int i = 0; i < rgb.length; i++) {
+                    rgb[i] &= 0x00FFFFFF;
+                }
+            }
+
+            ByteBuffer pixels = ByteBuffer.allocate(rgb.length * 4).order(ByteOrder.BIG_ENDIAN);
+            pixels.asIntBuffer().put(rgb);
+            while (pixels.hasRemaining()) {
+                position += channel.write(pixels, position);
+            }
+
+            indexOut.writeInt(w);
+            indexOut.writeInt(h);
+            indexOut.writeLong(position - 4L * rgb.length);
+            indexOut.writeUTF(key);
+
+            return count++;
+        }
+
+        /**
+         * Returns the number of added tiles
+         * @return tile count
+         */
+        public int count() {
+            return count;
+        }
+
+        /**
+         * Writes the index and the header and closes the file.
+         * @throws IOException if the file can't be written
+         */
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+
+            try {
+                indexOut.flush();
+                ByteBuffer indexBuffer = ByteBuffer.wrap(index.toByteArray());
+                long indexOffset = position;
+                while (indexBuffer.hasRemaining()) {
+                    position += channel.write(indexBuffer, position);
+                }
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.BIG_ENDIAN);
+                header.putInt(MAGIC);
+                header.putInt(VERSION);
+                header.putInt(tileWidth);
+                header.putInt(tileHeigth);
+                header.putInt(alpha ? FLAG_ALPHA : 0);
+                header.putInt(count);
+                header.putLong(indexOffset);
+                header.flip();
+                long p = 0;
+                while (header.hasRemaining()) {
+                    p += channel.write(header, p);
+                }
+            } finally {
+                raf.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package de.realriu.riulib.helpers;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.imageio.ImageIO;
+
+/**
+ * Stores scaled thumbnails on the hard disk, so they don't have to be decoded and scaled again after a restart.<br/>
+ * <br/>
+ * A thumbnail is identified by the canonical path, size and modification time of the image file,
+ * the target size and the scaling quality. Changed files therefore automatically get new entries.<br/>
+ * The thumbnails are stored as small PNG files in the cache directory. The total size of the directory is limited,
+ * if it is exceeded the least recently used thumbnails are deleted.<br/>
+ * <br/>
+ * New entries are written into a temporary file which is renamed afterwards,
+ * so readers (also in other processes) never see incomplete files.
+ * @author riu
+ * @version 1.0
+ * @see #get(java.io.File, int, int, de.realriu.riulib.helpers.ScaleImage.Quality)
+ * @see #put(java.io.File, int, int, de.realriu.riulib.helpers.ScaleImage.Quality, java.awt.image.BufferedImage)
+ */
+public class ThumbnailCache {
+
+    private static final String SUFFIX = ".png";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final File directory;
+    private final long maxBytes;
+    /**
+     * key => file size, in order of access (LRU)
+     */
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<String, Long>(256, 0.75f, true);
+    private long bytes = 0;
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * Opens the cache in the specified directory. Existing entries are taken over, their LRU order is given by the modification time.
+     * @param directory cache directory, is created if it doesn't exist
+     * @param maxBytes maximum total size of the thumbnails in bytes
+     * @throws IOException if the directory can't be created
+     */
+    public ThumbnailCache(File directory, long maxBytes) throws IOException {
+        if (directory == null || maxBytes <= 0) {
+            throw new IllegalArgumentException("Ungülige Parameter: Verzeichnis(" + directory + ") / maxBytes(" + maxBytes + ")");
+        }
+
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Das Cacheverzeichnis kann nicht angelegt werden: " + directory);
+        }
+
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        load();
+    }
+
+    private void load() {
+        List<File> found = new ArrayList<File>();
+        File[] buckets = directory.listFiles(new FileFilter() {
+
+            @Override
+            public boolean accept(File f) {
+                return f.isDirectory() && f.getName().length() == 2;
+            }
+        });
+
+        if (buckets != null) {
+            for (File bucket : buckets) {
+                File[] files = bucket.listFiles();
+                if (files == null) {
+                    continue;
+                }
+                for (File f : files) {
+                    if (f.getName().endsWith(SUFFIX)) {
+                        found.add(f);
+                    } else if (f.getName().endsWith(TEMP_SUFFIX) && f.lastModified() < System.currentTimeMillis() - 60000) {
+                        // Überbleibsel eines abgebrochenen Schreibvorgangs
+                        f.delete();
+                    }
+                }
+            }
+        }
+
+        File[] sorted = found.toArray(new File[found.size()]);
+        Arrays.sort(sorted, new Comparator<File>() {
+
+            @Override
+            public int compare(File f1, File f2) {
+                long m1 = f1.lastModified();
+                long m2 = f2.lastModified();
+                return m1 < m2 ? -1 : (m1 == m2 ? 0 : 1);
+            }
+        });
+
+        synchronized (this) {
+            for (File f : sorted) {
+                String name = f.getName();
+                long size = f.length();
+                entries.put(name.substring(0, name.length() - SUFFIX.length()), size);
+                bytes += size;
+            }
+            evict();
+        }
+    }
+
+    /**
+     * Returns the cached thumbnail of an image file.
+     * @param source image file
+     * @param width target width
+     * @param heigth target height
+     * @param quality scaling quality
+     * @return thumbnail or <b>null</b> if there is no entry for the current version of the file
+     */
+    public BufferedImage get(File source, int width, int heigth, ScaleImage.Quality quality) {
+        String key = key(source, width, heigth, quality);
+        if (key == null) {
+            return null;
+        }
+
+        synchronized (this) {
+            if (entries.get(key) == null) {
+                misses++;
+                return null;
+            }
+        }
+
+        File f = getFile(key);
+        try {
+            BufferedImage img = ImageIO.read(f);
+            if (img != null) {
+                f.setLastModified(System.currentTimeMillis());
+                synchronized (this) {
+                    hits++;
+                }
+                return img;
+            }
+        } catch (IOException ex) {
+            // Eintrag wurde zwischenzeitlich entfernt oder ist kaputt
+        }
+
+        synchronized (this) {
+            misses++;
+            Long size = entries.remove(key);
+            if (size != null) {
+                bytes -= size;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stores a thumbnail of an image file.
+     * @param source image file
+     * @param width target width
+     * @param heigth target height
+     * @param quality scaling quality
+     * @param thumbnail scaled image
+     * @throws IOException if the thumbnail can't be written
+     */
+    public void put(File source, int width, int heigth, ScaleImage.Quality quality, BufferedImage thumbnail) throws IOException {
+        if (thumbnail == null) {
+            throw new IllegalArgumentException("Nullpointer für das Bild übergeben!");
+        }
+
+        String key = key(source, width, heigth, quality);
+        if (key == null) {
+            return;
+        }
+
+        File f = getFile(key);
+        File parent = f.getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory()) {
+            throw new IOException("Das Cacheverzeichnis kann nicht angelegt werden: " + parent);
+        }
+
+        File temp = File.createTempFile(key, TEMP_SUFFIX, parent);
+        try {
+            if (!ImageIO.write(thumbnail, "png", temp)) {
+                throw new IOException("Kein PNG Encoder vorhanden");
+            }
+
+            if (!temp.renameTo(f)) {
+                // Windows ersetzt beim Umbenennen keine vorhandenen Dateien
+                f.delete();
+                if (!temp.renameTo(f)) {
+                    throw new IOException("Der Eintrag kann nicht gespeichert werden: " + f);
+                }
+            }
+        } finally {
+            temp.delete();
+        }
+
+        synchronized (this) {
+            Long old = entries.put(key, f.length());
+            if (old != null) {
+                bytes -= old;
+            }
+            bytes += f.length();
+            evict();
+        }
+    }
+
+    /**
+     * Deletes the least recently used entries until the cache is small enough.
+     */
+    private synchronized void evict() {
+        Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Long> e = it.next();
+            getFile(e.getKey()).delete();
+            bytes -= e.getValue();
+            it.remove();
+        }
+    }
+
+    /**
+     * Deletes all entries.
+     */
+    public synchronized void clear() {
+        for (String key : entries.keySet()) {
+            getFile(key).delete();
+        }
+        entries.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Returns the total size of the stored thumbnails.
+     * @return size in bytes
+     */
+    public synchronized long getSize() {
+        return bytes;
+    }
+
+    /**
+     * Returns the maximum total size of the stored thumbnails.
+     * @return size in bytes
+     */
+    public long getMaxSize() {
+        return maxBytes;
+    }
+
+    /**
+     * Returns the number of stored thumbnails.
+     * @return number of entries
+     */
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of successful calls of get()
+     * @return hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of calls of get() which didn't find a thumbnail
+     * @return misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the cache directory
+     * @return directory
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    private File getFile(String key) {
+        return new File(new File(directory, key.substring(0, 2)), key + SUFFIX);
+    }
+
+    /**
+     * Creates the key of a thumbnail (SHA-1 of path, size, modification time, target size and quality).
+     * @return key or null if the file doesn't exist
+     */
+    private static String key(File source, int width, int heigth, ScaleImage.Quality quality) {
+        if (source == null || width <= 0 || heigth <= 0) {
+            throw new IllegalArgumentException("Ungülige Parameter: File(" + source + ") / Breite(" + width + ") / Höhe(" + heigth + ")");
+        }
+
+        String path;
+        try {
+            path = source.getCanonicalPath();
+        } catch (IOException ex) {
+            path = source.getAbsolutePath();
+        }
+
+        long modified = source.lastModified();
+        if (modified == 0) {
+            return null;
+        }
+
+        String id = path + '\u0000' + source.length() + '\u0000' + modified + '\u0000' + width + 'x' + heigth + '\u0000'
+                + (quality == null ? ScaleImage.Quality.Fast : quality);
+
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(id.getBytes("UTF-8"));
+            StringBuilder sb = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+                sb.append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new RuntimeException(ex);
+        } catch (UnsupportedEncodingException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+}
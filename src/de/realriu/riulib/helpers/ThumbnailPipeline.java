@@ -0,0 +1,578 @@
+package de.realriu.riulib.helpers;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.imageio.ImageIO;
+
+/**
+ * Creates thumbnails for a large amount of files in parallel.<br/>
+ * Every file passes the stages read (file to bytes), decode (bytes to image), scale (image to thumbnail) and
+ * output (optional encoding and delivery to the listener). Each stage has its own threads and the stages are connected with bounded
+ * queues, so {@link #submit(java.io.File)} blocks if the pipeline can't keep up (backpressure).<br/>
+ * The queue in front of the scale stage holds decoded full resolution images, therefore its capacity defaults to the
+ * number of scale threads instead of the capacity of the other queues.<br/>
+ * <br/>
+ * Usage:<br/>
+ * <code>
+ * ThumbnailPipeline p = new ThumbnailPipeline(160, 120, listener);<br/>
+ * p.start();<br/>
+ * for(File f : files) p.submit(f);<br/>
+ * p.finish();<br/>
+ * p.awaitCompletion();
+ * </code>
+ * @author riu
+ * @version 1.0
+ * @see Listener
+ * @see Stage
+ * @see StageStatistics
+ */
+public class ThumbnailPipeline {
+
+    /**
+     * Receives the results of the pipeline.<br/>
+     * The methods are called by the threads of the pipeline.
+     */
+    public static interface Listener {
+
+        /**
+         * A thumbnail was created.
+         * @param source image file
+         * @param thumbnail scaled image
+         * @param encoded thumbnail encoded in the output format or <b>null</b> if no output format is set
+         * @see ThumbnailPipeline#setOutputFormat(java.lang.String)
+         */
+        public void thumbnailCreated(File source, BufferedImage thumbnail, byte[] encoded);
+
+        /**
+         * Creating the thumbnail of a file failed, the file is skipped.<br/>
+         * Errors (e.g. an OutOfMemoryError while decoding a big image) are wrapped in an ExecutionException.
+         * @param source image file
+         * @param stage stage in which the error occured
+         * @param error cause
+         */
+        public void thumbnailFailed(File source, Stage stage, Exception error);
+    }
+
+    /**
+     * Stages of the pipeline
+     */
+    public static enum Stage {
+
+        /**
+         * Reads the file into memory
+         */
+        Read,
+        /**
+         * Decodes the image
+         */
+        Decode,
+        /**
+         * Scales the image to the thumbnail size
+         */
+        Scale,
+        /**
+         * Encodes the thumbnail (optional) and passes it to the listener
+         */
+        Output
+    }
+
+    /**
+     * Throughput and latency counters of a stage.
+     */
+    public static class StageStatistics {
+
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong busyNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLong waitNanos = new AtomicLong();
+        private volatile long firstNanos = 0;
+        private volatile long lastNanos = 0;
+
+        private void record(long start, long end, long enqueued, boolean success) {
+            if (success) {
+                processed.incrementAndGet();
+            } else {
+                failed.incrementAndGet();
+            }
+
+            long d = end - start;
+            busyNanos.addAndGet(d);
+            waitNanos.addAndGet(start - enqueued);
+
+            long max = maxNanos.get();
+            while (d > max && !maxNanos.compareAndSet(max, d)) {
+                max = maxNanos.get();
+            }
+
+            if (firstNanos == 0) {
+                firstNanos = start;
+            }
+            lastNanos = end;
+        }
+
+        /**
+         * Number of items which passed the stage successfully
+         * @return processed items
+         */
+        public long getProcessed() {
+            return processed.get();
+        }
+
+        /**
+         * Number of items which failed in this stage
+         * @return failed items
+         */
+        public long getFailed() {
+            return failed.get();
+        }
+
+        /**
+         * Average time one item needs in the stage
+         * @return latency in milliseconds
+         */
+        public double getAverageLatency() {
+            long n = processed.get() + failed.get();
+            return n == 0 ? 0 : busyNanos.get() / 1e6 / n;
+        }
+
+        /**
+         * Longest time one item needed in the stage
+         * @return latency in milliseconds
+         */
+        public double getMaxLatency() {
+            return maxNanos.get() / 1e6;
+        }
+
+        /**
+         * Average time an item waited in the queue in front of the stage
+         * @return waiting time in milliseconds
+         */
+        public double getAverageQueueTime() {
+            long n = processed.get() + failed.get();
+            return n == 0 ? 0 : waitNanos.get() / 1e6 / n;
+        }
+
+        /**
+         * Items per second since the stage processed the first item
+         * @return throughput
+         */
+        public double getThroughput() {
+            long d = lastNanos - firstNanos;
+            return d <= 0 ? 0 : (processed.get() + failed.get()) * 1e9 / d;
+        }
+
+        @Override
+        public String toString() {
+            return "processed=" + getProcessed() + " failed=" + getFailed()
+                    + " throughput=" + Math.round(getThroughput()) + "/s avgLatency=" + getAverageLatency()
+                    + "ms maxLatency=" + getMaxLatency() + "ms avgQueueTime=" + getAverageQueueTime() + "ms";
+        }
+    }
+
+    private static class Item {
+
+        final File file;
+        byte[] data;
+        BufferedImage image;
+        long enqueued;
+
+        Item(File file) {
+            this.file = file;
+        }
+    }
+
+    /**
+     * Marks the end of the input of a stage
+     */
+    private static final Item END = new Item(null);
+
+    private final int width;
+    private final int heigth;
+    private final Listener listener;
+    private final int[] threads = new int[Stage.values().length];
+    private final StageStatistics[] statistics = new StageStatistics[Stage.values().length];
+    private final List<BlockingQueue<Item>> queues = new ArrayList<BlockingQueue<Item>>();
+    private final List<Thread> workers = new ArrayList<Thread>();
+    private final AtomicInteger[] running = new AtomicInteger[Stage.values().length];
+    private int queueCapacity = 64;
+    /**
+     * Capacity of the queue in front of each stage, 0 for the default
+     */
+    private final int[] capacities = new int[Stage.values().length];
+    private ScaleImage.Quality quality = ScaleImage.Quality.Fast;
+    private String outputFormat = null;
+    private volatile boolean started = false;
+    private volatile boolean finished = false;
+    private volatile boolean cancelled = false;
+
+    /**
+     * Creates a new pipeline with one thread per stage, except the decode and scale stage which get one thread per processor.
+     * @param width maximum thumbnail width
+     * @param heigth maximum thumbnail height
+     * @param listener receives the thumbnails and errors
+     */
+    public ThumbnailPipeline(int width, int heigth, Listener listener) {
+        if (width <= 0 || heigth <= 0) {
+            throw new IllegalArgumentException("width(" + width + ") und heigth(" + heigth + ") dürfen nicht negativ oder 0 sein!");
+        }
+
+        if (listener == null) {
+            throw new IllegalArgumentException("Kein Listener übergeben (listener==null)");
+        }
+
+        this.width = width;
+        this.heigth = heigth;
+        this.listener = listener;
+
+        int cpus = Runtime.getRuntime().availableProcessors();
+        threads[Stage.Read.ordinal()] = 1;
+        threads[Stage.Decode.ordinal()] = cpus;
+        threads[Stage.Scale.ordinal()] = cpus;
+        threads[Stage.Output.ordinal()] = 1;
+
+        for (int i = 0; i < statistics.length; i++) {
+            statistics[i] = new StageStatistics();
+            running[i] = new AtomicInteger();
+        }
+    }
+
+    /**
+     * Sets the number of threads of a stage.<br/>
+     * Must be called before {@link #start()}.
+     * @param stage stage
+     * @param count number of threads (&gt;0)
+     */
+    public void setThreads(Stage stage, int count) {
+        checkNotStarted();
+        if (count <= 0) {
+            throw new IllegalArgumentException("Ungültige Anzahl Threads: " + count);
+        }
+        threads[stage.ordinal()] = count;
+    }
+
+    /**
+     * Returns the number of threads of a stage.
+     * @param stage stage
+     * @return number of threads
+     */
+    public int getThreads(Stage stage) {
+        return threads[stage.ordinal()];
+    }
+
+    /**
+     * Sets the capacity of the queues in front of each stage which has no capacity of its own.<br/>
+     * Must be called before {@link #start()}.<br/>
+     * Default: 64, the queue in front of the scale stage gets at most one place per scale thread.
+     * @param capacity capacity (&gt;0)
+     * @see #setQueueCapacity(de.realriu.riulib.helpers.ThumbnailPipeline.Stage, int)
+     */
+    public void setQueueCapacity(int capacity) {
+        checkNotStarted();
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Ungültige Kapazität: " + capacity);
+        }
+        queueCapacity = capacity;
+    }
+
+    /**
+     * Sets the capacity of the queue in front of a stage.<br/>
+     * Must be called before {@link #start()}.<br/>
+     * Every item in front of the scale stage is a decoded full resolution image, a larger capacity there needs a lot of memory.
+     * @param stage stage
+     * @param capacity capacity (&gt;0) or 0 for the default
+     */
+    public void setQueueCapacity(Stage stage, int capacity) {
+        checkNotStarted();
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Ungültige Kapazität: " + capacity);
+        }
+        capacities[stage.ordinal()] = capacity;
+    }
+
+    /**
+     * Returns the capacity of the queue in front of a stage.
+     * @param stage stage
+     * @return capacity
+     */
+    public int getQueueCapacity(Stage stage) {
+        int capacity = capacities[stage.ordinal()];
+        if (capacity > 0) {
+            return capacity;
+        }
+        // dekodierte Bilder in voller Auflösung nur so viele wie gerade skaliert werden können
+        return stage == Stage.Scale ? Math.min(queueCapacity, threads[stage.ordinal()]) : queueCapacity;
+    }
+
+    /**
+     * Sets the scaling quality.<br/>
+     * Default: ScaleImage.Quality.Fast
+     * @param quality quality
+     */
+    public void setQuality(ScaleImage.Quality quality) {
+        checkNotStarted();
+        this.quality = quality == null ? ScaleImage.Quality.Fast : quality;
+    }
+
+    /**
+     * Sets the format in which the output stage encodes the thumbnails (e.g. "jpg" or "png").<br/>
+     * Default: null (no encoding)
+     * @param formatName ImageIO format name or <b>null</b>
+     */
+    public void setOutputFormat(String formatName) {
+        checkNotStarted();
+        outputFormat = formatName;
+    }
+
+    private void checkNotStarted() {
+        if (started) {
+            throw new IllegalStateException("Die Pipeline wurde bereits gestartet!");
+        }
+    }
+
+    /**
+     * Starts the threads of all stages.
+     */
+    public synchronized void start() {
+        checkNotStarted();
+        started = true;
+
+        for (Stage s : Stage.values()) {
+            queues.add(new ArrayBlockingQueue<Item>(getQueueCapacity(s)));
+        }
+
+        for (final Stage s : Stage.values()) {
+            running[s.ordinal()].set(threads[s.ordinal()]);
+            for (int i = 0; i < threads[s.ordinal()]; i++) {
+                Thread t = new Thread("ThumbnailPipeline-" + s + "-" + i) {
+
+                    @Override
+                    public void run() {
+                        work(s);
+                    }
+                };
+                t.setDaemon(true);
+                workers.add(t);
+            }
+        }
+
+        for (Thread t : workers) {
+            t.start();
+        }
+    }
+
+    /**
+     * Passes a file into the pipeline.<br/>
+     * Blocks while the queue of the read stage is full.
+     * @param f image file
+     * @return false if the pipeline was cancelled and the file is ignored
+     * @throws InterruptedException if the thread was interrupted while waiting
+     */
+    public boolean submit(File f) throws InterruptedException {
+        if (!started || finished) {
+            throw new IllegalStateException("Die Pipeline nimmt keine Dateien an (start() aufgerufen? finish() aufgerufen?)");
+        }
+
+        if (f == null) {
+            throw new IllegalArgumentException("Nullpointer für die Datei übergeben!");
+        }
+
+        if (cancelled) {
+            return false;
+        }
+
+        Item item = new Item(f);
+        item.enqueued = System.nanoTime();
+        queues.get(Stage.Read.ordinal()).put(item);
+        return true;
+    }
+
+    /**
+     * Signals that no more files will be submitted.<br/>
+     * The files in the pipeline are still processed.
+     * @throws InterruptedException if the thread was interrupted while waiting
+     */
+    public void finish() throws InterruptedException {
+        if (!started) {
+            throw new IllegalStateException("Die Pipeline wurde nicht gestartet!");
+        }
+
+        if (!finished) {
+            finished = true;
+            endOfInput(Stage.Read);
+        }
+    }
+
+    /**
+     * Stops all stages. Files which are not yet processed are discarded without notification.
+     */
+    public synchronized void cancel() {
+        cancelled = true;
+        finished = true;
+        for (BlockingQueue<Item> q : queues) {
+            q.clear();
+        }
+        for (Thread t : workers) {
+            t.interrupt();
+        }
+    }
+
+    /**
+     * Returns whether the pipeline was cancelled.
+     * @return true if cancelled
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Waits until all threads of the pipeline are terminated (after {@link #finish()} or {@link #cancel()}).
+     * @throws InterruptedException if the thread was interrupted while waiting
+     */
+    public void awaitCompletion() throws InterruptedException {
+        for (Thread t : workers) {
+            t.join();
+        }
+    }
+
+    /**
+     * Returns the counters of a stage.
+     * @param stage stage
+     * @return statistics
+     */
+    public StageStatistics getStatistics(Stage stage) {
+        return statistics[stage.ordinal()];
+    }
+
+    /**
+     * Returns the number of items waiting in front of a stage.
+     * @param stage stage
+     * @return queue size
+     */
+    public int getQueueSize(Stage stage) {
+        return queues.isEmpty() ? 0 : queues.get(stage.ordinal()).size();
+    }
+
+    private void endOfInput(Stage s) throws InterruptedException {
+        BlockingQueue<Item> q = queues.get(s.ordinal());
+        for (int i = 0; i < threads[s.ordinal()]; i++) {
+            q.put(END);
+        }
+    }
+
+    private void work(Stage s) {
+        BlockingQueue<Item> in = queues.get(s.ordinal());
+        BlockingQueue<Item> out = s.ordinal() + 1 < queues.size() ? queues.get(s.ordinal() + 1) : null;
+        StageStatistics stats = statistics[s.ordinal()];
+
+        try {
+            while (!cancelled) {
+                Item item = in.take();
+                if (item == END) {
+                    break;
+                }
+
+                long start = System.nanoTime();
+                boolean success = false;
+                try {
+                    process(s, item);
+                    success = true;
+                } catch (Throwable t) {
+                    // Speicher des fehlgeschlagenen Bildes freigeben
+                    item.data = null;
+                    item.image = null;
+                    failed(item.file, s, t);
+                } finally {
+                    stats.record(start, System.nanoTime(), item.enqueued, success);
+                }
+
+                if (success && out != null && !cancelled) {
+                    item.enqueued = System.nanoTime();
+                    out.put(item);
+                }
+            }
+        } catch (InterruptedException ex) {
+            // abgebrochen
+        } finally {
+            // der letzte Thread der Stufe beendet die nächste Stufe, auch wenn er durch einen Fehler beendet wurde
+            if (running[s.ordinal()].decrementAndGet() == 0 && out != null && !cancelled) {
+                try {
+                    endOfInput(Stage.values()[s.ordinal() + 1]);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    private void failed(File f, Stage s, Throwable t) {
+        if (cancelled) {
+            return;
+        }
+
+        try {
+            listener.thumbnailFailed(f, s, t instanceof Exception ? (Exception) t : new ExecutionException(t));
+        } catch (RuntimeException ex) {
+            // ein fehlerhafter Listener darf die Stufe nicht beenden
+        }
+    }
+
+    private void process(Stage s, Item item) throws IOException {
+        switch (s) {
+            case Read:
+                item.data = readFile(item.file);
+                break;
+            case Decode:
+                item.image = ImageIO.read(new ByteArrayInputStream(item.data));
+                item.data = null;
+                if (item.image == null) {
+                    throw new IOException("Unbekanntes Bildformat: " + item.file);
+                }
+                break;
+            case Scale:
+                ScaleImage.Rectangle size = ScaleImage.fitToRect(width, heigth, item.image);
+                item.image = ScaleImage.scale(item.image, size.width, size.heigth, quality);
+                break;
+            case Output:
+                byte[] encoded = null;
+                if (outputFormat != null) {
+                    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+                    if (!ImageIO.write(item.image, outputFormat, bout)) {
+                        throw new IOException("Kein Encoder für das Format " + outputFormat + " vorhanden");
+                    }
+                    encoded = bout.toByteArray();
+                }
+                listener.thumbnailCreated(item.file, item.image, encoded);
+                item.image = null;
+                break;
+        }
+    }
+
+    private static byte[] readFile(File f) throws IOException {
+        InputStream in = new FileInputStream(f);
+        try {
+            long length = f.length();
+            ByteArrayOutputStream bout = new ByteArrayOutputStream(length > 0 && length < Integer.MAX_VALUE ? (int) length : 8192);
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                bout.write(buffer, 0, n);
+            }
+            return bout.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package de.realriu.riulib.helpers;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import javax.imageio.IIOException;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * Reads the preview images which are embedded in image files (EXIF thumbnail in the APP1 segment of JPEG files
+ * or the thumbnails offered by the ImageReader), so that small tiles can be created without decoding the whole image.
+ * @author riu
+ * @version 1.0
+ * @see #readThumbnail(java.io.File, int, int)
+ */
+public class ThumbnailReader {
+
+    /**
+     * Maximum allowed difference between the aspect ratio of the thumbnail and the one of the image.<br/>
+     * Cameras often store letterboxed thumbnails, those can't be used as tile.
+     */
+    private static final double MAX_ASPECT_DIFFERENCE = 0.05;
+
+    private static final int MARKER_SOI = 0xD8;
+    private static final int MARKER_SOS = 0xDA;
+    private static final int MARKER_EOI = 0xD9;
+    private static final int MARKER_APP1 = 0xE1;
+
+    private static final int TAG_COMPRESSION = 0x0103;
+    private static final int TAG_JPEG_OFFSET = 0x0201;
+    private static final int TAG_JPEG_LENGTH = 0x0202;
+
+    private ThumbnailReader() {
+    }
+
+    /**
+     * Returns the embedded thumbnail of the file if it is at least as big as the image would be
+     * when it is fitted into a rectangle with the specified size.
+     * @param f image file
+     * @param minWidth width of the rectangle the thumbnail is fitted in
+     * @param minHeigth height of the rectangle the thumbnail is fitted in
+     * @return thumbnail or <b>null</b> if the file has no thumbnail which is big enough
+     * @throws IOException if the file can't be read
+     */
+    public static BufferedImage readThumbnail(File f, int minWidth, int minHeigth) throws IOException {
+        if (f == null || minWidth <= 0 || minHeigth <= 0) {
+            throw new IllegalArgumentException("Ungülige Parameter: File(" + f + ") / Breite(" + minWidth + ") / Höhe(" + minHeigth + ")");
+        }
+
+        ImageInputStream iis = ImageIO.createImageInputStream(f);
+        if (iis == null) {
+            return null;
+        }
+
+        try {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) {
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, false);
+                int width = reader.getWidth(0);
+                int heigth = reader.getHeight(0);
+
+                BufferedImage thumb = null;
+                if ("jpeg".equalsIgnoreCase(reader.getFormatName())) {
+                    thumb = readExifThumbnail(f);
+                }
+
+                if (thumb == null || !isUsable(thumb.getWidth(), thumb.getHeight(), width, heigth, minWidth, minHeigth)) {
+                    thumb = null;
+                    try {
+                        for (int i = 0; thumb == null && i < reader.getNumThumbnails(0); i++) {
+                            if (isUsable(reader.getThumbnailWidth(0, i), reader.getThumbnailHeight(0, i), width, heigth, minWidth, minHeigth)) {
+                                thumb = reader.readThumbnail(0, i);
+                            }
+                        }
+                    } catch (IIOException ex) {
+                        // ungültige Metadaten => keine Vorschaubilder, das Bild wird komplett dekodiert
+                        thumb = null;
+                    }
+                }
+
+                return thumb;
+            } finally {
+                reader.dispose();
+            }
+        } finally {
+            iis.close();
+        }
+    }
+
+    /**
+     * Checks whether a thumbnail has the aspect ratio of the image and is big enough for the rectangle.
+     */
+    private static boolean isUsable(int thumbWidth, int thumbHeigth, int width, int heigth, int minWidth, int minHeigth) {
+        if (thumbWidth <= 0 || thumbHeigth <= 0 || width <= 0 || heigth <= 0) {
+            return false;
+        }
+
+        double aspect = (double) width / heigth;
+        double thumbAspect = (double) thumbWidth / thumbHeigth;
+        if (Math.abs(aspect - thumbAspect) / aspect > MAX_ASPECT_DIFFERENCE) {
+            return false;
+        }
+
+        ScaleImage.Rectangle fitted = ScaleImage.fitToRect(minWidth, minHeigth, width, heigth);
+        return thumbWidth >= fitted.width && thumbHeigth >= fitted.heigth;
+    }
+
+    /**
+     * Reads the JPEG thumbnail from the EXIF data (IFD1) in the APP1 segment of a JPEG file.
+     * @param f JPEG file
+     * @return thumbnail or <b>null</b> if the file has no EXIF thumbnail
+     * @throws IOException if the file can't be read
+     */
+    public static BufferedImage readExifThumbnail(File f) throws IOException {
+        byte[] exif = readExifSegment(f);
+        if (exif == null) {
+            return null;
+        }
+
+        byte[] jpeg = extractJpegThumbnail(exif);
+        if (jpeg == null) {
+            return null;
+        }
+
+        try {
+            return ImageIO.read(new ByteArrayInputStream(jpeg));
+        } catch (IOException ex) {
+            // kaputtes Vorschaubild => Fallback auf das eigentliche Bild
+            return null;
+        }
+    }
+
+    /**
+     * Searches the markers in front of the image data for the EXIF APP1 segment.
+     * @return TIFF structure of the segment (without the "Exif\0\0" header) or null
+     */
+    private static byte[] readExifSegment(File f) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)));
+        try {
+            if (in.readUnsignedByte() != 0xFF || in.readUnsignedByte() != MARKER_SOI) {
+                return null;
+            }
+
+            while (true) {
+                int b = in.readUnsignedByte();
+                if (b != 0xFF) {
+                    return null;
+                }
+
+                int marker = in.readUnsignedByte();
+                while (marker == 0xFF) {
+                    marker = in.readUnsignedByte();
+                }
+
+                if (marker == MARKER_SOS || marker == MARKER_EOI) {
+                    return null;
+                }
+
+                int length = in.readUnsignedShort() - 2;
+                if (length < 0) {
+                    return null;
+                }
+
+                if (marker == MARKER_APP1 && length > 6) {
+                    byte[] segment = new byte[length];
+                    in.readFully(segment);
+                    if (segment[0] == 'E' && segment[1] == 'x' && segment[2] == 'i' && segment[3] == 'f' && segment[4] == 0 && segment[5] == 0) {
+                        byte[] tiff = new byte[length - 6];
+                        System.arraycopy(segment, 6, tiff, 0, tiff.length);
+                        return tiff;
+                    }
+                } else {
+                    skipFully(in, length);
+                }
+            }
+        } catch (EOFException ex) {
+            return null;
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void skipFully(DataInputStream in, int n) throws IOException {
+        while (n > 0) {
+            int skipped = in.skipBytes(n);
+            if (skipped <= 0) {
+                throw new EOFException();
+            }
+            n -= skipped;
+        }
+    }
+
+    /**
+     * Extracts the JPEG compressed thumbnail which is referenced by the second IFD of the TIFF structure.
+     * @return JPEG data or null if there is none or the structure is damaged
+     */
+    private static byte[] extractJpegThumbnail(byte[] tiff) {
+        if (tiff.length < 8) {
+            return null;
+        }
+
+        boolean littleEndian;
+        if (tiff[0] == 'I' && tiff[1] == 'I') {
+            littleEndian = true;
+        } else if (tiff[0] == 'M' && tiff[1] == 'M') {
+            littleEndian = false;
+        } else {
+            return null;
+        }
+
+        if (readShort(tiff, 2, littleEndian) != 42) {
+            return null;
+        }
+
+        long ifd0 = readInt(tiff, 4, littleEndian);
+        if (ifd0 < 8 || ifd0 + 2 > tiff.length) {
+            return null;
+        }
+
+        int entries0 = readShort(tiff, (int) ifd0, littleEndian);
+        long next = ifd0 + 2 + entries0 * 12L;
+        if (next + 4 > tiff.length) {
+            return null;
+        }
+
+        long ifd1 = readInt(tiff, (int) next, littleEndian);
+        if (ifd1 < 8 || ifd1 + 2 > tiff.length) {
+            return null;
+        }
+
+        int entries1 = readShort(tiff, (int) ifd1, littleEndian);
+        long offset = -1;
+        long length = -1;
+        int compression = 6;
+        for (int i = 0; i < entries1; i++) {
+            int entry = (int) ifd1 + 2 + i * 12;
+            if (entry + 12 > tiff.length) {
+                return null;
+            }
+
+            int tag = readShort(tiff, entry, littleEndian);
+            int type = readShort(tiff, entry + 2, littleEndian);
+            long value = type == 3 ? readShort(tiff, entry + 8, littleEndian) : readInt(tiff, entry + 8, littleEndian);
+
+            if (tag == TAG_JPEG_OFFSET) {
+                offset = value;
+            } else if (tag == TAG_JPEG_LENGTH) {
+                length = value;
+            } else if (tag == TAG_COMPRESSION) {
+                compression = (int) value;
+            }
+        }
+
+        if (compression != 6 || offset <= 0 || length <= 0 || offset + length > tiff.length) {
+            return null;
+        }
+
+        byte[] jpeg = new byte[(int) length];
+        System.arraycopy(tiff, (int) offset, jpeg, 0, jpeg.length);
+        return jpeg;
+    }
+
+    private static int readShort(byte[] b, int pos, boolean littleEndian) {
+        int b0 = b[pos] & 0xFF;
+        int b1 = b[pos + 1] & 0xFF;
+        return littleEndian ? (b1 << 8) | b0 : (b0 << 8) | b1;
+    }
+
+    private static long readInt(byte[] b, int pos, boolean littleEndian) {
+        long b0 = b[pos] & 0xFF;
+        long b1 = b[pos + 1] & 0xFF;
+        long b2 = b[pos + 2] & 0xFF;
+        long b3 = b[pos + 3] & 0xFF;
+        return littleEndian ? (b3 << 24) | (b2 << 16) | (b1 << 8) | b0 : (b0 << 24) | (b1 << 16) | (b2 << 8) | b3;
+    }
+}
@@ -0,0 +1,348 @@
+package de.realriu.riulib.gui.imagelist;
+
+import de.realriu.riulib.helpers.ScaleImage;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import javax.imageio.ImageIO;
+
+/**
+ * Simple benchmarks for the rendering of the image lists.<br/>
+ * Runs headless: java -Djava.awt.headless=true de.realriu.riulib.gui.imagelist.ImageListBenchmark [number of JPEGs for addDirectory]
+ * @author riu
+ */
+public class ImageListBenchmark {
+
+    private static final int WARMUP = 2000;
+    private static final int FRAMES = 500;
+
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+
+        benchmarkFitToRect();
+        benchmarkPaintAllocation(200);
+        benchmarkTitles(200);
+        benchmarkFrameTime(new int[]{100, 1000, 10000, 50000}, 20);
+        benchmarkRenderCache(20);
+        benchmarkPyramid(20);
+        benchmarkBlit();
+        benchmarkAddDirectory(args.length > 0 ? Integer.parseInt(args[0]) : 1000, new int[]{1, 2, 4, 8, 16});
+    }
+
+    /**
+     * Compares the allocations of the different fitToRect variants
+     */
+    private static void benchmarkFitToRect() {
+        BufferedImage img = new BufferedImage(64, 48, BufferedImage.TYPE_INT_RGB);
+        ScaleImage.Rectangle rect = new ScaleImage.Rectangle(0, 0, 100, 100);
+        java.awt.Rectangle out = new java.awt.Rectangle();
+        long sum = 0;
+
+        for (int i = 0; i < 100000; i++) {
+            sum += ScaleImage.fitToRect(rect, img).width;
+            sum += ScaleImage.fitToRect(0, 0, 100, 100, 64, 48, out).width;
+        }
+
+        long before = allocatedBytes();
+        for (int i = 0; i < 100000; i++) {
+            sum += ScaleImage.fitToRect(rect, img).width;
+        }
+        long objects = allocatedBytes() - before;
+
+        before = allocatedBytes();
+        for (int i = 0; i < 100000; i++) {
+            sum += ScaleImage.fitToRect(0, 0, 100, 100, 64, 48, out).width;
+        }
+        long reused = allocatedBytes() - before;
+
+        before = allocatedBytes();
+        for (int i = 0; i < 100000; i++) {
+            sum += ScaleImage.packedWidth(ScaleImage.fitSize(100, 100, 64, 48));
+        }
+        long packed = allocatedBytes() - before;
+
+        System.out.println("fitToRect x100000: new Rectangle=" + objects + " bytes, reused Rectangle=" + reused
+                + " bytes, packed long=" + packed + " bytes (" + sum + ")");
+    }
+
+    /**
+     * Measures the bytes allocated per frame while painting a list with the specified number of visible tiles
+     */
+    private static void benchmarkPaintAllocation(int tiles) {
+        DefaultImageList list = createList(tiles, tiles);
+        list.setTitleColor(null);
+        BufferedImage target = new BufferedImage(list.getWidth(), list.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+
+        for (int i = 0; i < WARMUP; i++) {
+            list.paint(g);
+        }
+
+        long before = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < FRAMES; i++) {
+            list.paint(g);
+        }
+        long time = System.nanoTime() - start;
+        long bytes = allocatedBytes() - before;
+
+        System.out.println("paint " + tiles + " tiles: " + (bytes / FRAMES) + " bytes/frame, " + (time / FRAMES / 1000) + " us/frame");
+        g.dispose();
+    }
+
+    /**
+     * Measures the bytes allocated per frame and the frame time of visible tiles with titles which have to be shortened
+     */
+    private static void benchmarkTitles(int tiles) {
+        DefaultImageList list = createList(tiles, tiles);
+        for (int i = 0; i < tiles; i++) {
+            list.setTitle(i, "A rather long title of the image number " + i + " which doesn't fit into the tile");
+        }
+        BufferedImage target = new BufferedImage(list.getWidth(), list.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+
+        for (int i = 0; i < WARMUP; i++) {
+            list.paint(g);
+        }
+
+        long before = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < FRAMES; i++) {
+            list.paint(g);
+        }
+        long time = System.nanoTime() - start;
+        long bytes = allocatedBytes() - before;
+
+        System.out.println("paint " + tiles + " tiles with long titles: " + (bytes / FRAMES) + " bytes/frame, " + (time / FRAMES / 1000) + " us/frame");
+        g.dispose();
+    }
+
+    /**
+     * Measures the frame time of lists with different sizes and the same number of visible tiles
+     */
+    private static void benchmarkFrameTime(int[] sizes, int visible) {
+        for (int size : sizes) {
+            DefaultImageList list = createList(size, visible);
+            // in die Mitte der Liste scrollen
+            list.position = -(size / 2) * 50;
+            BufferedImage target = new BufferedImage(list.getWidth(), list.getHeight(), BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = target.createGraphics();
+
+            for (int i = 0; i < WARMUP; i++) {
+                list.paint(g);
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < FRAMES; i++) {
+                list.paint(g);
+            }
+            long time = System.nanoTime() - start;
+
+            System.out.println("paint " + size + " images (" + visible + " visible): " + (time / FRAMES / 1000) + " us/frame");
+            g.dispose();
+        }
+    }
+
+    /**
+     * Compares the frame time of a list with full size images with and without the render cache
+     */
+    private static void benchmarkRenderCache(int visible) {
+        Image[] images = new Image[visible];
+        for (int i = 0; i < images.length; i++) {
+            images[i] = createImage(i, 1024, 768);
+        }
+
+        for (long cacheSize : new long[]{0, 32L * 1024 * 1024}) {
+            DefaultImageList list = createList(0, visible);
+            list.setRenderCacheSize(cacheSize);
+            for (int i = 0; i < images.length; i++) {
+                list.addImage(images[i], "Image " + i);
+            }
+            BufferedImage target = new BufferedImage(list.getWidth(), list.getHeight(), BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = target.createGraphics();
+
+            for (int i = 0; i < WARMUP / 4; i++) {
+                list.paint(g);
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < FRAMES / 4; i++) {
+                list.paint(g);
+            }
+            long time = System.nanoTime() - start;
+
+            System.out.println("paint " + visible + " images 1024x768, render cache " + (cacheSize / 1024) + " KB: "
+                    + (time / (FRAMES / 4) / 1000) + " us/frame");
+            g.dispose();
+        }
+    }
+
+    /**
+     * Compares the frame time of a list with full size images whose tile size changes in every frame (dragged split pane),
+     * with and without the image pyramid
+     */
+    private static void benchmarkPyramid(int visible) {
+        Image[] images = new Image[visible];
+        for (int i = 0; i < images.length; i++) {
+            images[i] = createImage(i, 2048, 1536);
+        }
+
+        for (long pyramidSize : new long[]{0, 64L * 1024 * 1024}) {
+            DefaultImageList list = createList(0, visible);
+            list.setPyramidSize(pyramidSize);
+            for (int i = 0; i < images.length; i++) {
+                list.addImage(images[i], "Image " + i);
+            }
+            BufferedImage target = new BufferedImage(visible * 100, 100, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = target.createGraphics();
+
+            // Stufen im Hintergrund erzeugen lassen
+            for (int i = 0; i < 40; i++) {
+                list.setSize(list.getWidth(), 43 + i % 40);
+                list.paint(g);
+                sleep(20);
+            }
+
+            int frames = FRAMES / 10;
+            long start = System.nanoTime();
+            for (int i = 0; i < frames; i++) {
+                // jeder Frame hat eine neue Kachelgröße
+                list.setSize(list.getWidth(), 43 + i % 40);
+                list.paint(g);
+            }
+            long time = System.nanoTime() - start;
+
+            System.out.println("paint " + visible + " images 2048x1536 with a new tile size per frame, pyramid " + (pyramidSize / 1024) + " KB: "
+                    + (time / frames / 1000) + " us/frame");
+            g.dispose();
+        }
+    }
+
+    /**
+     * Measures the throughput of FileImageList.addDirectory() with different numbers of decode threads
+     */
+    private static void benchmarkAddDirectory(int files, int[] threads) throws IOException {
+        Path dir = Files.createTempDirectory("imagelist");
+        try {
+            for (int i = 0; i < files; i++) {
+                BufferedImage img = (BufferedImage) createImage(i, 640, 480);
+                ImageIO.write(img, "jpg", dir.resolve(String.format("img%06d.jpg", i)).toFile());
+            }
+
+            long single = 0;
+            for (int t : threads) {
+                FileImageList list = new FileImageList(AbstractImageList.Alignment.Horizontal, false);
+                list.removeComponentListener(list);
+                list.setSize(1010, 103);
+                BufferedImage target = new BufferedImage(1010, 103, BufferedImage.TYPE_INT_RGB);
+                Graphics2D g = target.createGraphics();
+                // Kachelgröße festlegen
+                list.paint(g);
+                g.dispose();
+
+                long start = System.nanoTime();
+                int added = list.addDirectory(dir, null, false, null, t);
+                long time = System.nanoTime() - start;
+                if (single == 0) {
+                    single = time;
+                }
+
+                System.out.println("addDirectory " + added + " JPEGs 640x480, " + t + " threads: " + (time / 1000000) + " ms, "
+                        + ((long) added * 1000000000 / time) + " files/s, speedup " + String.format("%.2f", (double) single / time));
+            }
+        } finally {
+            File[] list = dir.toFile().listFiles();
+            if (list != null) {
+                for (File f : list) {
+                    f.delete();
+                }
+            }
+            Files.delete(dir);
+        }
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Compares the blit throughput of the image formats which ImageIO.read() produces with the compatible format
+     */
+    private static void benchmarkBlit() {
+        int[] types = {BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_BYTE_INDEXED, BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_INT_RGB};
+        String[] names = {"3BYTE_BGR", "BYTE_INDEXED", "INT_ARGB", "INT_RGB"};
+        BufferedImage target = new BufferedImage(1024, 768, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+
+        for (int t = 0; t < types.length; t++) {
+            BufferedImage src = new BufferedImage(256, 256, types[t]);
+            Graphics2D sg = src.createGraphics();
+            sg.drawImage(createImage(t, 256, 256), 0, 0, null);
+            sg.dispose();
+
+            System.out.println("blit 256x256 " + names[t] + ": " + blit(g, src) + " MPixel/s, compatible: "
+                    + blit(g, ScaleImage.toCompatibleImage(src, null)) + " MPixel/s");
+        }
+        g.dispose();
+    }
+
+    private static long blit(Graphics2D g, Image img) {
+        for (int i = 0; i < 1000; i++) {
+            g.drawImage(img, i % 700, i % 500, null);
+        }
+
+        int count = 5000;
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            g.drawImage(img, i % 700, i % 500, null);
+        }
+        long time = System.nanoTime() - start;
+        return (long) count * img.getWidth(null) * img.getHeight(null) * 1000 / time;
+    }
+
+    /**
+     * Creates a horizontal list whose size allows the specified number of visible tiles (40x40 pixels).
+     */
+    static DefaultImageList createList(int count, int visible) {
+        DefaultImageList list = new DefaultImageList(AbstractImageList.Alignment.Horizontal, false);
+        // keine Slide Animationen durch setSize()
+        list.removeComponentListener(list);
+        list.setSize(visible * 50 + 10, 43);
+
+        Image[] images = new Image[16];
+        for (int i = 0; i < images.length; i++) {
+            images[i] = createImage(i);
+        }
+
+        for (int i = 0; i < count; i++) {
+            list.addImage(images[i % images.length], "Image " + i);
+        }
+        return list;
+    }
+
+    static Image createImage(int i) {
+        return createImage(i, 64 + i % 16, 48);
+    }
+
+    static Image createImage(int i, int width, int heigth) {
+        BufferedImage img = new BufferedImage(width, heigth, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = img.createGraphics();
+        g.setColor(new java.awt.Color(i * 31 % 255, i * 17 % 255, i * 7 % 255));
+        g.fillRect(0, 0, img.getWidth(), img.getHeight());
+        g.dispose();
+        return img;
+    }
+
+    static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}